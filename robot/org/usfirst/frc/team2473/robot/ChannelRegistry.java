@@ -0,0 +1,235 @@
+package org.usfirst.frc.team2473.robot;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import org.usfirst.frc.team2473.robot.Database.Value;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A registry of the channels one thread acquires, ex. the sensors in SensorThread or the joysticks in OI.<br>
+ * Each channel is declared once with its type, the supplier that reads it, its units and its dashboard name:
+ * <pre>
+ * registry = new ChannelRegistry(clock)
+ *         .addDouble(Value.GYRO, () -> gyro.getAngle(), "deg", "Gyro Angle")
+ *         .addLong(Value.LEFT_ENCODER, () -> leftEncoder.getEncPosition(), "counts", "Left Distance")
+ *         .compile();
+ * </pre>
+ * compile() flattens the declarations into primitive value arrays and supplier arrays per type,
+ * so sample() and publish() are plain loops over arrays. Long channels stay exact counts.
+ * Every channel of a snapshot is published with the time the snapshot started, from the registry's clock.
+ */
+public class ChannelRegistry {
+
+	/**
+	 * the type a channel is stored and published as
+	 */
+	public enum Type {
+		DOUBLE, LONG, BOOLEAN
+	}
+
+	private static class Channel {
+		Value key;
+		Type type;
+		Object source;
+		String units;
+		String dashboardName;
+	}
+
+	private Clock clock;
+	private List<Channel> declared = new ArrayList<>();
+	private EnumSet<Value> keys = EnumSet.noneOf(Value.class);
+	private boolean compiled;
+
+	//the compiled channels, one set of parallel arrays per type
+	private Value[] doubleKeys, longKeys, booleanKeys;
+	private String[] doubleNames, longNames, booleanNames;
+	private DoubleSupplier[] doubleSources;
+	private LongSupplier[] longSources;
+	private BooleanSupplier[] booleanSources;
+	private double[] doubleSamples;
+	private long[] longSamples;
+	private boolean[] booleanSamples;
+	private long sampleTime;
+
+	private Type[] types = new Type[Value.values().length];
+	private String[] units = new String[Value.values().length];
+
+	/**
+	 * @param clock the clock that timestamps the snapshots
+	 */
+	public ChannelRegistry(Clock clock) {
+		this.clock = clock;
+	}
+
+	public ChannelRegistry addDouble(Value key, DoubleSupplier source, String units, String dashboardName) {
+		return add(key, Type.DOUBLE, source, units, dashboardName);
+	}
+
+	public ChannelRegistry addLong(Value key, LongSupplier source, String units, String dashboardName) {
+		return add(key, Type.LONG, source, units, dashboardName);
+	}
+
+	public ChannelRegistry addBoolean(Value key, BooleanSupplier source, String units, String dashboardName) {
+		return add(key, Type.BOOLEAN, source, units, dashboardName);
+	}
+
+	private ChannelRegistry add(Value key, Type type, Object source, String units, String dashboardName) {
+		if (compiled) {
+			throw new IllegalStateException("channels cannot be added after compile()");
+		}
+		if (!keys.add(key)) {
+			throw new IllegalArgumentException(key + " is already registered");
+		}
+		Channel c = new Channel();
+		c.key = key;
+		c.type = type;
+		c.source = source;
+		c.units = units;
+		c.dashboardName = dashboardName;
+		declared.add(c);
+		return this;
+	}
+
+	/**
+	 * flattens the declared channels into arrays and registers this registry with the Database for logging.
+	 * No channels can be added afterwards.
+	 * @return this registry
+	 * @throws IllegalArgumentException if another compiled registry already declares one of the channels
+	 */
+	public ChannelRegistry compile() {
+		if (compiled) {
+			return this;
+		}
+		int doubles = 0, longs = 0, booleans = 0;
+		for (Channel c : declared) {
+			switch (c.type) {
+			case DOUBLE:
+				doubles++;
+				break;
+			case LONG:
+				longs++;
+				break;
+			case BOOLEAN:
+				booleans++;
+				break;
+			}
+		}
+
+		doubleKeys = new Value[doubles];
+		doubleNames = new String[doubles];
+		doubleSources = new DoubleSupplier[doubles];
+		doubleSamples = new double[doubles];
+		longKeys = new Value[longs];
+		longNames = new String[longs];
+		longSources = new LongSupplier[longs];
+		longSamples = new long[longs];
+		booleanKeys = new Value[booleans];
+		booleanNames = new String[booleans];
+		booleanSources = new BooleanSupplier[booleans];
+		booleanSamples = new boolean[booleans];
+
+		doubles = longs = booleans = 0;
+		for (Channel c : declared) {
+			types[c.key.ordinal()] = c.type;
+			units[c.key.ordinal()] = c.units;
+			switch (c.type) {
+			case DOUBLE:
+				doubleKeys[doubles] = c.key;
+				doubleNames[doubles] = c.dashboardName;
+				doubleSources[doubles++] = (DoubleSupplier) c.source;
+				break;
+			case LONG:
+				longKeys[longs] = c.key;
+				longNames[longs] = c.dashboardName;
+				longSources[longs++] = (LongSupplier) c.source;
+				break;
+			case BOOLEAN:
+				booleanKeys[booleans] = c.key;
+				booleanNames[booleans] = c.dashboardName;
+				booleanSources[booleans++] = (BooleanSupplier) c.source;
+				break;
+			}
+		}
+		declared = null;
+		compiled = true;
+		Database.getInstance().register(this);
+		return this;
+	}
+
+	/**
+	 * stops logging this registry and frees its values for another registry, ex. at the end of a headless run
+	 */
+	public void release() {
+		Database.getInstance().unregister(this);
+	}
+
+	/**
+	 * snapshots every channel from its source
+	 */
+	public void sample() {
+		sampleTime = clock.nanos();
+		for (int i = 0; i < doubleSources.length; i++) {
+			doubleSamples[i] = doubleSources[i].getAsDouble();
+		}
+		for (int i = 0; i < longSources.length; i++) {
+			longSamples[i] = longSources[i].getAsLong();
+		}
+		for (int i = 0; i < booleanSources.length; i++) {
+			booleanSamples[i] = booleanSources[i].getAsBoolean();
+		}
+	}
+
+	/**
+	 * pushes the last snapshot to the Database
+	 */
+	public void publish() {
+		Database database = Database.getInstance();
+		for (int i = 0; i < doubleKeys.length; i++) {
+			database.setValue(doubleKeys[i], doubleSamples[i], sampleTime);
+		}
+		for (int i = 0; i < longKeys.length; i++) {
+			database.setCount(longKeys[i], longSamples[i], sampleTime);
+		}
+		for (int i = 0; i < booleanKeys.length; i++) {
+			database.setBoolean(booleanKeys[i], booleanSamples[i], sampleTime);
+		}
+	}
+
+	/**
+	 * logs the channels to the dashboard under their dashboard names, reading them back from the Database
+	 */
+	public void log() {
+		Database database = Database.getInstance();
+		for (int i = 0; i < doubleKeys.length; i++) {
+			SmartDashboard.putNumber(doubleNames[i], database.getValue(doubleKeys[i]));
+		}
+		for (int i = 0; i < longKeys.length; i++) {
+			SmartDashboard.putNumber(longNames[i], database.getCount(longKeys[i]));
+		}
+		for (int i = 0; i < booleanKeys.length; i++) {
+			SmartDashboard.putBoolean(booleanNames[i], database.getBoolean(booleanKeys[i]));
+		}
+	}
+
+	/**
+	 * @param key the channel
+	 * @return the type the channel was declared with, or null if it is not in this registry
+	 */
+	public Type getType(Value key) {
+		return types[key.ordinal()];
+	}
+
+	/**
+	 * @param key the channel
+	 * @return the units the channel was declared with, or null if it is not in this registry
+	 */
+	public String getUnits(Value key) {
+		return units[key.ordinal()];
+	}
+}
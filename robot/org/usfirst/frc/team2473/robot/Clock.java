@@ -0,0 +1,51 @@
+package org.usfirst.frc.team2473.robot;
+
+/**
+ * The source of time for every loop on the robot, ex. SensorThread, the Scheduler loop in Robot and the TelemetryStreamer.<br>
+ * RealClock is the wall clock used on the robot. VirtualClock advances in discrete steps so headless runs are fast
+ * and reproducible.
+ */
+public interface Clock {
+
+	/**
+	 * @return the current time in milliseconds
+	 */
+	long millis();
+
+	/**
+	 * @return the current time in nanoseconds, only meaningful relative to another call
+	 */
+	long nanos();
+
+	/**
+	 * waits for the given time to pass on this clock
+	 * @param millis the time to wait in milliseconds
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	void sleep(long millis) throws InterruptedException;
+
+	/**
+	 * runs a task at a fixed rate, starting now
+	 * @param task the task to run
+	 * @param periodMillis the time between runs in milliseconds
+	 * @return a handle to cancel the task
+	 */
+	Task schedulePeriodic(Runnable task, long periodMillis);
+
+	/**
+	 * Whether this clock follows the wall clock. Loops that run on their own thread must be scheduled
+	 * with schedulePeriodic instead when this is false.
+	 * @return true if time passes on its own
+	 */
+	boolean isRealTime();
+
+	/**
+	 * a task scheduled with schedulePeriodic
+	 */
+	interface Task {
+		/**
+		 * stops any future runs of the task
+		 */
+		void cancel();
+	}
+}
@@ -0,0 +1,150 @@
+package org.usfirst.frc.team2473.robot;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long each command lifecycle call and each control loop step takes, so we can see what is eating the
+ * 20 ms Scheduler budget.<br>
+ * Events go into preallocated ring buffer arrays, so recording one is two System.nanoTime() calls and a few array stores.
+ * When the profiler is disabled begin() returns 0 and end() returns straight away.
+ * Timing uses System.nanoTime() rather than the loops' Clock because it measures real execution time.<br>
+ * To use it, register a name once and wrap the call:
+ * <pre>
+ * static final int RUN = CommandProfiler.register("Scheduler.run", "loop");
+ * long start = CommandProfiler.begin();
+ * Scheduler.getInstance().run();
+ * CommandProfiler.end(RUN, start);
+ * </pre>
+ * dumpChromeTrace writes the buffer as Chrome trace-event JSON, which chrome://tracing or Perfetto can open.
+ */
+public class CommandProfiler {
+
+	/**
+	 * the number of events kept, older events are overwritten. Must be a power of two
+	 */
+	public static final int CAPACITY = 1 << 16;
+
+	private static volatile boolean enabled;
+
+	private static final long[] starts = new long[CAPACITY];
+	private static final long[] durations = new long[CAPACITY];
+	private static final long[] threads = new long[CAPACITY];
+	private static final int[] events = new int[CAPACITY];
+	private static final AtomicLong recorded = new AtomicLong();
+
+	private static final List<String> names = new ArrayList<>();
+	private static final List<String> categories = new ArrayList<>();
+
+	private CommandProfiler() {
+	}
+
+	/**
+	 * registers an event name. Call this once, not every time the event is recorded
+	 * @param name the name shown in the trace, ex. Drive.execute
+	 * @param category the category shown in the trace, ex. command
+	 * @return the id to pass to end()
+	 */
+	public static synchronized int register(String name, String category) {
+		names.add(name);
+		categories.add(category);
+		return names.size() - 1;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		CommandProfiler.enabled = enabled;
+	}
+
+	/**
+	 * @return the start time to pass to end(), or 0 if the profiler is disabled
+	 */
+	public static long begin() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * records an event that started at start and ends now
+	 * @param event the id from register()
+	 * @param start the time from begin()
+	 */
+	public static void end(int event, long start) {
+		if (start == 0) {
+			return;
+		}
+		long end = System.nanoTime();
+		int slot = (int) (recorded.getAndIncrement() & (CAPACITY - 1));
+		starts[slot] = start;
+		durations[slot] = end - start;
+		threads[slot] = Thread.currentThread().getId();
+		events[slot] = event;
+	}
+
+	/**
+	 * clears the recorded events
+	 */
+	public static void reset() {
+		recorded.set(0);
+	}
+
+	/**
+	 * writes the recorded events, oldest first, as Chrome trace-event JSON.
+	 * Events recorded while dumping may show up torn, so dump after disabling the profiler.
+	 * @param out where to write the JSON
+	 * @throws IOException if the writer fails
+	 */
+	public static void dumpChromeTrace(Writer out) throws IOException {
+		long count = recorded.get();
+		long first = Math.max(0, count - CAPACITY);
+		long base = count > 0 ? starts[(int) (first & (CAPACITY - 1))] : 0;
+
+		out.write("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+		StringBuilder event = new StringBuilder();
+		for (long i = first; i < count; i++) {
+			int slot = (int) (i & (CAPACITY - 1));
+			event.setLength(0);
+			if (i > first) {
+				event.append(',');
+			}
+			event.append("\n{\"name\":\"").append(escape(nameOf(events[slot])))
+					.append("\",\"cat\":\"").append(escape(categoryOf(events[slot])))
+					.append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(threads[slot])
+					.append(",\"ts\":").append((starts[slot] - base) / 1000.0)
+					.append(",\"dur\":").append(durations[slot] / 1000.0)
+					.append('}');
+			out.write(event.toString());
+		}
+		out.write("\n]}\n");
+		out.flush();
+	}
+
+	/**
+	 * writes the Chrome trace to a file
+	 * @param path the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void dumpChromeTrace(String path) throws IOException {
+		try (FileWriter out = new FileWriter(path)) {
+			dumpChromeTrace(out);
+		}
+	}
+
+	private static synchronized String nameOf(int event) {
+		return event < names.size() ? names.get(event) : "unknown";
+	}
+
+	private static synchronized String categoryOf(int event) {
+		return event < categories.size() ? categories.get(event) : "unknown";
+	}
+
+	private static String escape(String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
@@ -1,34 +1,44 @@
 package org.usfirst.frc.team2473.robot;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import edu.wpi.first.wpilibj.buttons.Button;
 import edu.wpi.first.wpilibj.buttons.InternalButton;
 import edu.wpi.first.wpilibj.command.Command;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * Over database that stores a snapshot of the joysticks and sensor values in a thread safe way
  * This is constantly updated by multiple querying threads.
  * To use this class, you can access the values by using the getValue and getButton methods.
+ * Every value also carries the sequence number and acquisition timestamp of the sample it came from.
+ * The Database does not read a clock itself; writers pass the timestamp from their own Clock.
+ * Writes without a timestamp are stamped UNKNOWN_TIME. It is not 0, which a VirtualClock returns at the start of a run.
  * This class follows the <a href = "">singleton design pattern</a>
  * @author thatSteveFan, Will Fang
  *
  */
 public class Database{
 
+	//the encoders are stored as exact counts, multiply by these to get a distance
 	public static final double LEFT_ENC_CONSTANT = 1;
 	public static final double RIGHT_ENC_CONSTANT = 1;
 
+	//the timestamp of a value whose acquisition time is unknown, no clock returns it
+	public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
 
 
 	/**
 	 * an enum that describes all the sensors that this database is tracking.<br>
 	 * This includes the joysticks.<br>
-	 * To add a new sensor, add it here as an enum element and update the appropriate calling method. ex Sensor Thread, OI
+	 * To add a new sensor, add it here as an enum element and declare it in the ChannelRegistry of the appropriate thread. ex Sensor Thread, OI
 	 * 
 	 * @author thatSteveFan
 	 * 
@@ -50,6 +60,30 @@ public class Database{
 
 	}
 
+	/**
+	 * A value together with the sequence number and timestamp of the sample it came from, filled in by getSample
+	 */
+	public static class Sample {
+		double value;
+		long sequence;
+		long timestamp = UNKNOWN_TIME;
+
+		public double getValue() {
+			return value;
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * @return the acquisition time from the writer's Clock.nanos(), UNKNOWN_TIME if it is unknown
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+
 	/**
 	 * the instance of this class.
 	 * 
@@ -65,24 +99,36 @@ public class Database{
 
 	
 	/**
-	 * A map between the Value enum and their respective value holders
+	 * The value holders, indexed by the ordinal of their Value
 	 */
-	private Map<Value, ThreadSafeHolder> map;
+	private ThreadSafeHolder[] holders;
 	/**
 	 * A map between the ButtonName enum and their respective actual buttons
 	 */
 	private Map<ButtonName, ThreadSafeInternalButton> buttonMap;
+	/**
+	 * The registries whose channels are logged to the dashboard
+	 */
+	private List<ChannelRegistry> registries;
+	/**
+	 * The values some registry writes, each value can only have one
+	 */
+	private EnumSet<Value> registeredValues = EnumSet.noneOf(Value.class);
+	/**
+	 * The last sequence number given to a sample, shared by all values so samples are ordered across threads
+	 */
+	private AtomicLong sequence = new AtomicLong();
 	
 	/**
 	 * Constructor that makes the single instance
 	 */
 	private Database() {
-		HashMap<Value, ThreadSafeHolder> tempMap = (new HashMap<>());//creates the map
-		map = Collections.synchronizedMap(tempMap);//makes the map thread-safe
-		//initializes the map with all the keys
+		//initializes a holder for every value, each holder is thread-safe on its own
+		holders = new ThreadSafeHolder[Value.values().length];
 		for (Value v : Value.values()) {
-			map.put(v, new ThreadSafeHolder());
+			holders[v.ordinal()] = new ThreadSafeHolder();
 		}
+		registries = new CopyOnWriteArrayList<>();
 		buttonMap = Collections.synchronizedMap(new HashMap<>());
 		for(ButtonName b : ButtonName.values())
 		{
@@ -96,18 +142,112 @@ public class Database{
 	 * @return the value responding to the value enum
 	 */
 	public double getValue(Value v) {
-		return map.get(v).getValue();
+		return holders[v.ordinal()].getValue();
 	}
 
 	/**
-	 * sets the double value of the value in a thread-safe manner
+	 * sets the double value of the value in a thread-safe manner, with an unknown acquisition time
 	 * @param v the value you are querying
 	 * @param the value responding to the value enum
 	 */
 	public void setValue(Value v, double newValue) {
+		setValue(v, newValue, UNKNOWN_TIME);
+	}
+
+	/**
+	 * sets the double value of the value in a thread-safe manner
+	 * @param v the value you are querying
+	 * @param newValue the value responding to the value enum
+	 * @param timestamp when the value was acquired, from the writer's Clock.nanos()
+	 */
+	public void setValue(Value v, double newValue, long timestamp) {
+		holders[v.ordinal()].setValue(newValue, sequence.incrementAndGet(), timestamp);
+	}
+
+	/**
+	 * returns the exact count of the value in a thread-safe manner, ex. encoder counts
+	 * @param v the value you are querying
+	 * @return the count responding to the value enum
+	 */
+	public long getCount(Value v) {
+		return holders[v.ordinal()].getCount();
+	}
+
+	/**
+	 * sets the exact count of the value in a thread-safe manner, with an unknown acquisition time.
+	 * getValue will return it as a double
+	 * @param v the value you are querying
+	 * @param newCount the count responding to the value enum
+	 */
+	public void setCount(Value v, long newCount) {
+		setCount(v, newCount, UNKNOWN_TIME);
+	}
+
+	/**
+	 * sets the exact count of the value in a thread-safe manner. getValue will return it as a double
+	 * @param v the value you are querying
+	 * @param newCount the count responding to the value enum
+	 * @param timestamp when the count was acquired, from the writer's Clock.nanos()
+	 */
+	public void setCount(Value v, long newCount, long timestamp) {
+		holders[v.ordinal()].setCount(newCount, sequence.incrementAndGet(), timestamp);
+	}
+
+	/**
+	 * returns the value as a boolean in a thread-safe manner
+	 * @param v the value you are querying
+	 * @return whether the value is non-zero
+	 */
+	public boolean getBoolean(Value v) {
+		return holders[v.ordinal()].getCount() != 0;
+	}
+
+	/**
+	 * sets the value as a boolean in a thread-safe manner, with an unknown acquisition time. It is stored as 1 or 0
+	 * @param v the value you are querying
+	 * @param newValue the boolean responding to the value enum
+	 */
+	public void setBoolean(Value v, boolean newValue) {
+		setBoolean(v, newValue, UNKNOWN_TIME);
+	}
+
+	/**
+	 * sets the value as a boolean in a thread-safe manner. It is stored as 1 or 0
+	 * @param v the value you are querying
+	 * @param newValue the boolean responding to the value enum
+	 * @param timestamp when the value was acquired, from the writer's Clock.nanos()
+	 */
+	public void setBoolean(Value v, boolean newValue, long timestamp) {
+		holders[v.ordinal()].setCount(newValue ? 1 : 0, sequence.incrementAndGet(), timestamp);
+	}
+
+	/**
+	 * returns the sequence number of the sample the value came from. Later samples have higher numbers
+	 * @param v the value you are querying
+	 * @return the sequence number, 0 if the value was never set
+	 */
+	public long getSequence(Value v) {
+		return holders[v.ordinal()].getSequence();
+	}
 
+	/**
+	 * returns when the value was acquired
+	 * @param v the value you are querying
+	 * @return the acquisition time from the writer's Clock.nanos(), UNKNOWN_TIME if it is unknown
+	 */
+	public long getTimestamp(Value v) {
+		return holders[v.ordinal()].getTimestamp();
+	}
 
-		map.get(v).setValue(newValue);
+	/**
+	 * reads the value with its sequence number and timestamp at once, so all three come from the same sample
+	 * @param v the value you are querying
+	 * @param sample the sample to fill in, reused so reading does not allocate
+	 * @return the sample
+	 */
+	public Sample getSample(Value v, Sample sample) {
+		holders[v.ordinal()].read(sample);
+		return sample;
 	}
 
 	/**
@@ -131,35 +271,66 @@ public class Database{
 	}
 	
 
+	/**
+	 * registers a compiled ChannelRegistry so that its channels are logged
+	 * @param registry the registry
+	 * @throws IllegalArgumentException if another registry already writes one of its values
+	 */
+	synchronized void register(ChannelRegistry registry) {
+		EnumSet<Value> values = EnumSet.noneOf(Value.class);
+		for (Value v : Value.values()) {
+			if (registry.getType(v) != null) {
+				if (registeredValues.contains(v)) {
+					throw new IllegalArgumentException(v + " is already registered by another ChannelRegistry");
+				}
+				values.add(v);
+			}
+		}
+		registeredValues.addAll(values);
+		registries.add(registry);
+	}
+
+	/**
+	 * removes a registry, so its values can be registered again and it is no longer logged
+	 * @param registry the registry
+	 */
+	synchronized void unregister(ChannelRegistry registry) {
+		if (registries.remove(registry)) {
+			for (Value v : Value.values()) {
+				if (registry.getType(v) != null) {
+					registeredValues.remove(v);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Logs values directly to the dashboard
-	 * Use this method to print sensor and joystick values
+	 * Use this method to print sensor and joystick values.
+	 * Every channel of every compiled ChannelRegistry is logged under its dashboard name
 	 */
 	public void log() {
-		SmartDashboard.putNumber("Left Distance",
-				(int)Database.getInstance().getValue(Value.LEFT_ENCODER));
-		SmartDashboard.putNumber("Right Distance",
-				(int)Database.getInstance().getValue(Value.RIGHT_ENCODER));
-		SmartDashboard.putNumber("Gyro Angle",
-				Database.getInstance().getValue(Value.GYRO));
-		SmartDashboard.putNumber("Wheel Twist",
-				Database.getInstance().getValue(Value.WHEEL_TWIST));
-		SmartDashboard.putNumber("Throttle Value",
-				Database.getInstance().getValue(Value.THROTTLE_VALUE));
-
+		for (ChannelRegistry registry : registries) {
+			registry.log();
+		}
 	}
 
 }
 
 /**
  * A class capable of storing a single double value in a thread-safe value. It uses the java <a href = "">ReentrantReadWriteLock</a>
- * to make a FIFO acess
+ * to make a FIFO acess.
+ * The value is also kept as an exact long count, so counts set with setCount are not rounded through the double.
+ * The sequence number and acquisition timestamp of the sample are stored with it
  * @author thatSteveFan, Will Fang
  *
  */
 class ThreadSafeHolder{
 
 	private volatile double value;
+	private volatile long count;
+	private volatile long sequence;
+	private volatile long timestamp = Database.UNKNOWN_TIME;
 	private ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
 
 	public double getValue() {
@@ -172,10 +343,63 @@ class ThreadSafeHolder{
 
 	}
 
-	public void setValue(double newValue) {
+	public void setValue(double newValue, long newSequence, long newTimestamp) {
 		try {
 			lock.writeLock().lock();
 			value = newValue;
+			count = (long) newValue;
+			sequence = newSequence;
+			timestamp = newTimestamp;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public long getCount() {
+		try {
+			lock.readLock().lock();
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getSequence() {
+		try {
+			lock.readLock().lock();
+			return sequence;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getTimestamp() {
+		try {
+			lock.readLock().lock();
+			return timestamp;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void read(Database.Sample sample) {
+		try {
+			lock.readLock().lock();
+			sample.value = value;
+			sample.sequence = sequence;
+			sample.timestamp = timestamp;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void setCount(long newCount, long newSequence, long newTimestamp) {
+		try {
+			lock.writeLock().lock();
+			count = newCount;
+			value = newCount;
+			sequence = newSequence;
+			timestamp = newTimestamp;
 		} finally {
 			lock.writeLock().unlock();
 		}
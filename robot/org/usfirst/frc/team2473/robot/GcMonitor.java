@@ -0,0 +1,330 @@
+package org.usfirst.frc.team2473.robot;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Watches the garbage collector and the robot loops, so we can tell whether a loop ran late because of a GC pause.<br>
+ * Each loop registers itself and calls begin() at the start and end() at the end of every iteration.
+ * An iteration is late when it starts more than half a period after it should have, measured from the start of the
+ * previous iteration. This includes time spent sleeping or waiting for a Timer, where a stop-the-world pause usually lands.
+ * A late iteration counts as a GC overrun when a pause from the GarbageCollectorMXBean notifications overlaps
+ * the time since the previous start. Notifications arrive after the pause, so late starts are kept until a pause
+ * overlaps them or they are pushed out by newer ones.<br>
+ * The bytes each loop's thread allocates are read from the per-thread allocation counter. The rate covers everything
+ * the thread allocates, and each iteration between begin() and end() has an allocation budget. Going over the budget is
+ * counted, and with setEnforceBudgets(true), ex. in a test, it throws an IllegalStateException.
+ * Loop timing uses System.nanoTime() rather than the loops' Clock because GC pauses happen in real time.<br>
+ * This class follows the singleton design pattern.
+ */
+public class GcMonitor {
+
+	private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+	private static final int PAUSES_KEPT = 32;
+	private static final int LATE_STARTS_KEPT = 16;
+
+	static GcMonitor theInstance;
+	static {
+		theInstance = new GcMonitor();
+	}
+
+	public static GcMonitor getInstance() {
+		return theInstance;
+	}
+
+	private com.sun.management.ThreadMXBean allocationCounter;//null when the JVM cannot count allocations per thread
+	private RuntimeMXBean runtime;//its uptime is the time base of GcInfo
+	private List<Loop> loops = new CopyOnWriteArrayList<>();
+	private volatile boolean enforceBudgets;
+
+	private volatile long gcCount;
+	private volatile long gcPauseTotal;
+	private volatile long gcLastPause;
+	private volatile long gcMaxPause;
+
+	//the most recent pauses, in milliseconds since the JVM started, guarded by this
+	private long[] pauseStarts = new long[PAUSES_KEPT];
+	private long[] pauseEnds = new long[PAUSES_KEPT];
+	private int pausesRecorded;
+
+	private GcMonitor() {
+		runtime = ManagementFactory.getRuntimeMXBean();
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (collector instanceof NotificationEmitter) {
+				((NotificationEmitter) collector).addNotificationListener(
+						(notification, handback) -> onNotification(notification), null, null);
+			}
+		}
+
+		try {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+				if (counter.isThreadAllocatedMemorySupported()) {
+					counter.setThreadAllocatedMemoryEnabled(true);
+					allocationCounter = counter;
+				}
+			}
+		} catch (LinkageError e) {
+			// not a HotSpot JVM, allocations are not tracked
+			e.printStackTrace();
+		}
+	}
+
+	private void onNotification(Notification notification) {
+		if (!GC_NOTIFICATION.equals(notification.getType())) {
+			return;
+		}
+		CompositeData info = (CompositeData) ((CompositeData) notification.getUserData()).get("gcInfo");
+		long start = (Long) info.get("startTime");
+		long end = (Long) info.get("endTime");
+		long pause = (Long) info.get("duration");
+		synchronized (this) {
+			gcCount++;
+			gcPauseTotal += pause;
+			gcLastPause = pause;
+			gcMaxPause = Math.max(gcMaxPause, pause);
+
+			int slot = pausesRecorded++ % PAUSES_KEPT;
+			pauseStarts[slot] = start;
+			pauseEnds[slot] = end;
+			for (Loop loop : loops) {
+				loop.attribute(start, end);
+			}
+		}
+	}
+
+	/**
+	 * @return whether a recorded pause overlaps the time from from to to. Must hold the lock on this
+	 */
+	private boolean pauseDuring(long from, long to) {
+		for (int i = 0; i < Math.min(pausesRecorded, PAUSES_KEPT); i++) {
+			if (pauseEnds[i] >= from && pauseStarts[i] <= to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the milliseconds since the JVM started, on the same monotonic counter as GcInfo.
+	 * Not the wall clock, which jumps when the driver station sets the time
+	 */
+	private long uptime() {
+		return runtime.getUptime();
+	}
+
+	/**
+	 * registers a loop to be monitored
+	 * @param name the name the loop is logged under, ex. Sensor
+	 * @param periodMillis the time between the starts of two iterations
+	 * @param allocationBudget the bytes an iteration may allocate between begin() and end()
+	 * @return the loop, call begin() and end() around every iteration
+	 */
+	public Loop registerLoop(String name, long periodMillis, long allocationBudget) {
+		Loop loop = new Loop(name, periodMillis, allocationBudget);
+		loops.add(loop);
+		return loop;
+	}
+
+	/**
+	 * sets whether going over an allocation budget throws. Use this in tests
+	 * @param enforce true to throw
+	 */
+	public void setEnforceBudgets(boolean enforce) {
+		enforceBudgets = enforce;
+	}
+
+	public boolean isTrackingAllocations() {
+		return allocationCounter != null;
+	}
+
+	private long allocatedBytes(long threadId) {
+		return allocationCounter == null ? 0 : allocationCounter.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * Logs the GC pauses and the loop statistics to the dashboard
+	 */
+	public void log() {
+		SmartDashboard.putNumber("GC Count", gcCount);
+		SmartDashboard.putNumber("GC Pause Total ms", gcPauseTotal);
+		SmartDashboard.putNumber("GC Last Pause ms", gcLastPause);
+		SmartDashboard.putNumber("GC Max Pause ms", gcMaxPause);
+		for (Loop loop : loops) {
+			loop.log();
+		}
+	}
+
+	/**
+	 * The statistics of one monitored loop. begin() and end() must be called from the loop's own thread
+	 */
+	public class Loop {
+
+		private String name;
+		private long periodNanos;
+		private long lateNanos;
+		private long allocationBudget;
+
+		private long threadId;
+		private long startNanos, startUptime, startBytes;
+		private boolean started;
+
+		private volatile long iterations;
+		private volatile long overruns;//iterations that started late
+		private volatile long gcOverruns;//late starts with a GC pause since the previous start
+		private volatile long budgetViolations;
+		private volatile long maxLateNanos;
+		private volatile long maxNanos;
+		private volatile long maxBytes;
+		private volatile long threadBytes;//everything the loop's thread allocated, as of the last begin()
+
+		//late starts no pause has been found for yet, guarded by the GcMonitor
+		private long[] lateFrom = new long[LATE_STARTS_KEPT];
+		private long[] lateTo = new long[LATE_STARTS_KEPT];
+		private boolean[] lateOpen = new boolean[LATE_STARTS_KEPT];
+		private int lateRecorded;
+
+		private long lastLogBytes;
+		private long lastLogNanos = System.nanoTime();
+
+		//the dashboard keys, built once
+		private String allocRateKey, maxAllocKey, budgetKey, maxLoopKey, maxLateKey, overrunsKey, gcOverrunsKey;
+
+		private Loop(String name, long periodMillis, long allocationBudget) {
+			this.name = name;
+			this.periodNanos = periodMillis * 1000000;
+			this.lateNanos = periodNanos / 2;
+			this.allocationBudget = allocationBudget;
+			allocRateKey = name + " Alloc Rate kB per s";
+			maxAllocKey = name + " Max Alloc bytes";
+			budgetKey = name + " Budget Violations";
+			maxLoopKey = name + " Max Loop ms";
+			maxLateKey = name + " Max Late ms";
+			overrunsKey = name + " Overruns";
+			gcOverrunsKey = name + " GC Overruns";
+		}
+
+		public void begin() {
+			long now = System.nanoTime();
+			long nowUptime = uptime();
+			threadId = Thread.currentThread().getId();
+			if (started) {
+				long late = now - startNanos - periodNanos;
+				maxLateNanos = Math.max(maxLateNanos, late);
+				if (late > lateNanos) {
+					overruns++;
+					lateStart(startUptime, nowUptime);
+				}
+			}
+			started = true;
+			startNanos = now;
+			startUptime = nowUptime;
+			startBytes = allocatedBytes(threadId);
+			threadBytes = startBytes;
+		}
+
+		/**
+		 * stops the loop, so the next begin() is not counted as late, ex. when the robot is disabled
+		 */
+		public void stop() {
+			started = false;
+		}
+
+		/**
+		 * @throws IllegalStateException if budgets are enforced and the iteration allocated more than its budget
+		 */
+		public void end() {
+			long nanos = System.nanoTime() - startNanos;
+			long bytes = allocatedBytes(threadId) - startBytes;
+
+			iterations++;
+			maxNanos = Math.max(maxNanos, nanos);
+			maxBytes = Math.max(maxBytes, bytes);
+			if (bytes > allocationBudget) {
+				budgetViolations++;
+				if (enforceBudgets) {
+					throw new IllegalStateException(name + " loop allocated " + bytes + " bytes, its budget is "
+							+ allocationBudget);
+				}
+			}
+		}
+
+		private void lateStart(long from, long to) {
+			synchronized (GcMonitor.this) {
+				if (pauseDuring(from, to)) {
+					gcOverruns++;
+					return;
+				}
+				//the pause may not have been reported yet
+				int slot = lateRecorded++ % LATE_STARTS_KEPT;
+				lateFrom[slot] = from;
+				lateTo[slot] = to;
+				lateOpen[slot] = true;
+			}
+		}
+
+		/**
+		 * counts the late starts a newly reported pause overlaps. Called holding the lock on the GcMonitor
+		 */
+		private void attribute(long pauseStart, long pauseEnd) {
+			for (int i = 0; i < LATE_STARTS_KEPT; i++) {
+				if (lateOpen[i] && pauseEnd >= lateFrom[i] && pauseStart <= lateTo[i]) {
+					lateOpen[i] = false;
+					gcOverruns++;
+				}
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getIterations() {
+			return iterations;
+		}
+
+		public long getOverruns() {
+			return overruns;
+		}
+
+		public long getGcOverruns() {
+			return gcOverruns;
+		}
+
+		public long getBudgetViolations() {
+			return budgetViolations;
+		}
+
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		private void log() {
+			long now = System.nanoTime();
+			long bytes = threadBytes;
+			double seconds = (now - lastLogNanos) / 1e9;
+			//no rate until the loop has run on both sides of the interval
+			boolean known = lastLogBytes > 0 && bytes > 0 && seconds > 0;
+			SmartDashboard.putNumber(allocRateKey, known ? (bytes - lastLogBytes) / 1024.0 / seconds : 0);
+			SmartDashboard.putNumber(maxAllocKey, maxBytes);
+			SmartDashboard.putNumber(budgetKey, budgetViolations);
+			SmartDashboard.putNumber(maxLoopKey, maxNanos / 1e6);
+			SmartDashboard.putNumber(maxLateKey, maxLateNanos / 1e6);
+			SmartDashboard.putNumber(overrunsKey, overruns);
+			SmartDashboard.putNumber(gcOverrunsKey, gcOverruns);
+			lastLogBytes = bytes;
+			lastLogNanos = now;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package org.usfirst.frc.team2473.robot;
+
+import org.usfirst.frc.team2473.robot.Database.Value;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Measures how old the inputs of an output are when the output is computed.<br>
+ * A command reads its inputs with Database.getSample and passes each sample to input(), and the subsystem calls
+ * actuate() when it is given the output, ex. in DriveTrain.driveArcade. The CAN frame is written later in
+ * DriveTrain.flushOutputs, or suppressed if the output did not change, and that delay is not included. actuate() records the age of each input in a histogram per Value, plus the ages of
+ * the oldest and newest input. An input whose sequence number did not change since the last actuation is also counted
+ * as a repeat, ex. a joystick that was not sampled again between two control cycles.<br>
+ * Ages are measured on the given clock, which must be the one the inputs were timestamped with.
+ */
+public class LatencyTracker {
+
+	private static final Value[] VALUES = Value.values();
+
+	private Clock clock;
+	private Histogram[] histograms = new Histogram[VALUES.length];
+	private Histogram oldest = new Histogram();
+	private Histogram newest = new Histogram();
+	private long[] repeats = new long[VALUES.length];
+
+	//the dashboard keys, built once
+	private String[][] keys = new String[VALUES.length][];
+	private String[] repeatKeys = new String[VALUES.length];
+	private String[] oldestKeys = keys("Oldest Input Latency");
+	private String[] newestKeys = keys("Newest Input Latency");
+
+	//the inputs read since the last actuation
+	private boolean[] pending = new boolean[VALUES.length];
+	private long[] pendingTimestamps = new long[VALUES.length];
+	private long[] pendingSequences = new long[VALUES.length];
+	private long[] lastSequences = new long[VALUES.length];
+	private boolean anyPending;
+
+	public LatencyTracker(Clock clock) {
+		this.clock = clock;
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new Histogram();
+			keys[i] = keys(VALUES[i].name() + " Latency");
+			repeatKeys[i] = VALUES[i].name() + " Latency Repeats";
+		}
+	}
+
+	private static String[] keys(String name) {
+		return new String[] { name + " p50 ms", name + " p99 ms", name + " max ms" };
+	}
+
+	/**
+	 * marks a value as an input of the next actuation
+	 * @param v the value that was read
+	 * @param sample the sample the value was read from, from Database.getSample
+	 */
+	public synchronized void input(Value v, Database.Sample sample) {
+		if (sample.getTimestamp() == Database.UNKNOWN_TIME) {
+			//written without an acquisition time, so it has no age
+			return;
+		}
+		int i = v.ordinal();
+		pending[i] = true;
+		pendingTimestamps[i] = sample.getTimestamp();
+		pendingSequences[i] = sample.getSequence();
+		anyPending = true;
+	}
+
+	/**
+	 * records the age of every input marked since the last actuation
+	 */
+	public synchronized void actuate() {
+		if (!anyPending) {
+			return;
+		}
+		long now = clock.nanos();
+		long oldestAge = Long.MIN_VALUE, newestAge = Long.MAX_VALUE;
+		for (int i = 0; i < pending.length; i++) {
+			if (!pending[i]) {
+				continue;
+			}
+			long age = now - pendingTimestamps[i];
+			histograms[i].record(age);
+			oldestAge = Math.max(oldestAge, age);
+			newestAge = Math.min(newestAge, age);
+			if (pendingSequences[i] == lastSequences[i]) {
+				repeats[i]++;
+			}
+			lastSequences[i] = pendingSequences[i];
+			pending[i] = false;
+		}
+		oldest.record(oldestAge);
+		newest.record(newestAge);
+		anyPending = false;
+	}
+
+	/**
+	 * @param v the input
+	 * @return the histogram of the input's age at actuation
+	 */
+	public Histogram getHistogram(Value v) {
+		return histograms[v.ordinal()];
+	}
+
+	public Histogram getOldest() {
+		return oldest;
+	}
+
+	public Histogram getNewest() {
+		return newest;
+	}
+
+	public synchronized void reset() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i].reset();
+			repeats[i] = 0;
+		}
+		oldest.reset();
+		newest.reset();
+	}
+
+	/**
+	 * Logs the median, 99th percentile and max age of every input that was used, in milliseconds
+	 */
+	public synchronized void log() {
+		for (int i = 0; i < histograms.length; i++) {
+			if (histograms[i].getCount() > 0) {
+				log(keys[i], histograms[i]);
+				SmartDashboard.putNumber(repeatKeys[i], repeats[i]);
+			}
+		}
+		log(oldestKeys, oldest);
+		log(newestKeys, newest);
+	}
+
+	private static void log(String[] keys, Histogram histogram) {
+		SmartDashboard.putNumber(keys[0], histogram.getPercentile(0.50) / 1e6);
+		SmartDashboard.putNumber(keys[1], histogram.getPercentile(0.99) / 1e6);
+		SmartDashboard.putNumber(keys[2], histogram.getMax() / 1e6);
+	}
+
+	/**
+	 * A histogram of nanosecond durations with linear buckets: bucket i counts durations below (i + 1) * 0.25 ms,
+	 * up to 100 ms. Longer durations go in an overflow bucket. Recording does not allocate. It is not thread-safe on its own
+	 */
+	public static class Histogram {
+
+		public static final long BUCKET_NANOS = 250000;
+		public static final int BUCKETS = 400;//100 ms, the overflow bucket comes after these
+
+		private long[] counts = new long[BUCKETS + 1];
+		private long count;
+		private long max;
+
+		public void record(long nanos) {
+			long bucket = Math.max(0, nanos) / BUCKET_NANOS;
+			counts[(int) Math.min(BUCKETS, bucket)]++;
+			count++;
+			max = Math.max(max, nanos);
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @param fraction the percentile between 0 and 1, ex. 0.99
+		 * @return the upper bound of the bucket holding the percentile in nanoseconds, at most the max.
+		 * The max if the percentile is in the overflow bucket
+		 */
+		public long getPercentile(double fraction) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(fraction * count);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(max, (i + 1) * BUCKET_NANOS);
+				}
+			}
+			//in the overflow bucket
+			return max;
+		}
+
+		public void reset() {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = 0;
+			}
+			count = 0;
+			max = 0;
+		}
+	}
+}
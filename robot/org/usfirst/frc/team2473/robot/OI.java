@@ -4,7 +4,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BooleanSupplier;
-import java.util.function.DoubleSupplier;
 
 import org.usfirst.frc.team2473.robot.Database.ButtonName;
 import org.usfirst.frc.team2473.robot.Database.Value;
@@ -54,17 +53,13 @@ public class OI {
 															// and associates
 															// functions with
 															// them
-	private Map<Value, Double> joyMap;// a map with a snapshot of the values
-	private Map<Value, DoubleSupplier> joyCallMap;// a map that maps joystick
-													// names with the functions
-													// to get their values
+	private ChannelRegistry joysticks;// the joystick axes and the functions
+										// to get their values
 
-	public OI() {
+	public OI(Clock clock) {
 
 		tempButtonMap = new HashMap<>();
 
-		joyMap = new HashMap<>();
-
 		buttonCallMap = new HashMap<>();
 
 		// add the button calls here
@@ -74,13 +69,11 @@ public class OI {
 
 		buttonCallMap = Collections.unmodifiableMap(buttonCallMap);
 
-		joyCallMap = new HashMap<>();
-
 		// add joystick calls here
-		joyCallMap.put(Value.WHEEL_TWIST, () -> getWheel().getX());
-		joyCallMap.put(Value.THROTTLE_VALUE, () -> getThrottle().getZ());
-
-		joyCallMap = Collections.unmodifiableMap(joyCallMap);
+		joysticks = new ChannelRegistry(clock)
+				.addDouble(Value.WHEEL_TWIST, () -> getWheel().getX(), "fraction", "Wheel Twist")
+				.addDouble(Value.THROTTLE_VALUE, () -> getThrottle().getZ(), "fraction", "Throttle Value")
+				.compile();
 
 		// Database.getInstance().getButton(ButtonName.TRIGGER).whenActive(new
 		// ButtonTest());
@@ -97,13 +90,9 @@ public class OI {
 	public void updateJoysticks() {
 
 		// snapshots the current joystick
-		for (Value v : joyCallMap.keySet()) {
-			joyMap.put(v, joyCallMap.get(v).getAsDouble());
-		}
+		joysticks.sample();
 		// pushes to the Database
-		for (Value v : joyMap.keySet()) {
-			Database.getInstance().setValue(v, joyMap.get(v));
-		}
+		joysticks.publish();
 	}
 
 	public void updateButtons() {
@@ -0,0 +1,43 @@
+package org.usfirst.frc.team2473.robot;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * The wall clock. Periodic tasks each get their own java.util.Timer thread.
+ */
+public class RealClock implements Clock {
+
+	@Override
+	public long millis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public long nanos() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public void sleep(long millis) throws InterruptedException {
+		Thread.sleep(millis);
+	}
+
+	@Override
+	public Task schedulePeriodic(Runnable task, long periodMillis) {
+		Timer timer = new Timer(false);
+		timer.scheduleAtFixedRate(new TimerTask() {
+
+			@Override
+			public void run() {
+				task.run();
+			}
+		}, 0, periodMillis);
+		return timer::cancel;
+	}
+
+	@Override
+	public boolean isRealTime() {
+		return true;
+	}
+}
@@ -7,11 +7,12 @@ import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.command.Scheduler;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 
 import org.usfirst.frc.team2473.robot.commands.*;
 import org.usfirst.frc.team2473.robot.subsystems.*;
+import org.usfirst.frc.team2473.robot.telemetry.TelemetryStreamer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
@@ -31,24 +32,51 @@ public class Robot extends IterativeRobot{
 	public static OI oi;
 	public static AnalogGyro gyro;
 	public static SensorThread sensorThread;
-	Timer robotControlLoop;
+	public static TelemetryStreamer telemetry;
+	public static LatencyTracker latency;
+	/**
+	 * the clock every loop on the robot runs on. It is passed to each loop; headless runs build their own VirtualClock
+	 */
+	private final Clock clock = new RealClock();
+	Clock.Task robotControlLoop;
 
 	
 	double lastTime;
 
+	private static final int SCHEDULER_EVENT = CommandProfiler.register("Scheduler.run", "loop");
+	private static final int FLUSH_EVENT = CommandProfiler.register("DriveTrain.flushOutputs", "loop");
+	public static final String TRACE_FILE = "/home/lvuser/trace.json";
+	public static final long CONTROL_ALLOCATION_BUDGET = 16384;//the bytes one control cycle may allocate
+	public static final long MAIN_ALLOCATION_BUDGET = 65536;//the bytes one teleopPeriodic may allocate, logging included
+	private GcMonitor.Loop controlLoopMonitor;
+	private GcMonitor.Loop mainLoopMonitor;
+
 	/**
 	 * This function is run when the robot is first started up and should be
 	 * used for any initialization code.
 	 */
 	public void robotInit() {
+		latency = new LatencyTracker(clock);
 		driveTrain = new DriveTrain();
 		gyro = new AnalogGyro(RobotMap.gyro);
-		oi = new OI();
+		oi = new OI(clock);
+		controlLoopMonitor = GcMonitor.getInstance().registerLoop("Scheduler", 20, CONTROL_ALLOCATION_BUDGET);
+		mainLoopMonitor = GcMonitor.getInstance().registerLoop("Main", 20, MAIN_ALLOCATION_BUDGET);
 		
-		sensorThread = new SensorThread(5);
-		sensorThread.start();
-		robotControlLoop = new Timer(false);
+		sensorThread = new SensorThread(5, clock);
+		sensorThread.startPolling();
+
+		try {
+			telemetry = new TelemetryStreamer(clock,
+					new InetSocketAddress(RobotMap.telemetryHost, RobotMap.telemetryPort), 5, 10);
+			telemetry.startStreaming();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 		timerRunning = false;
+
+		//set this on the dashboard to record a Chrome trace of the next enabled period
+		SmartDashboard.putBoolean("Profile Commands", false);
 		}
 
 	/**
@@ -71,6 +99,8 @@ public class Robot extends IterativeRobot{
 		 * autonomousCommand = new ExampleCommand(); break; }
 		 */
 
+		startProfiling();
+
 		// schedule the autonomous command (example)
 		if (autonomousCommand != null)
 			autonomousCommand.start();
@@ -80,7 +110,7 @@ public class Robot extends IterativeRobot{
 	 * This function is called periodically during autonomous
 	 */
 	public void autonomousPeriodic() {
-		Scheduler.getInstance().run();
+		controlCycle();
 	}
 
 	public void teleopInit() {
@@ -89,23 +119,19 @@ public class Robot extends IterativeRobot{
 		// continue until interrupted by another command, remove
 		// this line or comment it out.
 
+		startProfiling();
 	}
 
 	/**
 	 * This function is called periodically during operator control
 	 */
 	public void teleopPeriodic() {
+		mainLoopMonitor.begin();
 
-		//System.out.println(System.currentTimeMillis() - lastTime);
+		//System.out.println(clock.millis() - lastTime);
 
 		if (!timerRunning) {
-			robotControlLoop.scheduleAtFixedRate(new TimerTask(){
-
-				@Override
-				public void run() {
-					Scheduler.getInstance().run();
-				}
-			}, 0, 20);
+			robotControlLoop = clock.schedulePeriodic(this::controlCycle, 20);
 			timerRunning = true;
 		}
 
@@ -113,7 +139,8 @@ public class Robot extends IterativeRobot{
 		oi.updateJoysticks();
 		
 		log();
-		lastTime = System.currentTimeMillis();
+		lastTime = clock.millis();
+		mainLoopMonitor.end();
 
 
 
@@ -125,19 +152,75 @@ public class Robot extends IterativeRobot{
 	public void testPeriodic() {
 	}
 
+	@Override
+	public void disabledInit() {
+		mainLoopMonitor.stop();
+		//the control loop is stopped before dumping, so no cycle writes to the profiler during the dump
+		stopControlLoop();
+		dumpProfile();
+	}
+
 	@Override
 	public void disabledPeriodic() {
+	}
 
+	/**
+	 * cancels the control cycle timer. A cycle that is running when this is called finishes first
+	 */
+	private synchronized void stopControlLoop() {
 		if (timerRunning) {
 			// ends the timer and stops it from executing any tasks
 			robotControlLoop.cancel();
-			robotControlLoop = new Timer();
 			timerRunning = false;
 		}
+		//autonomous runs the control cycle on this thread without the timer, so stop it here in every mode
+		controlLoopMonitor.stop();
+	}
+
+	/**
+	 * runs the commands and then writes the drive outputs they set together
+	 */
+	public synchronized void controlCycle() {
+		if (isDisabled()) {
+			//the timer started this cycle just before stopControlLoop cancelled it
+			return;
+		}
+		controlLoopMonitor.begin();
+		long start = CommandProfiler.begin();
+		Scheduler.getInstance().run();
+		CommandProfiler.end(SCHEDULER_EVENT, start);
+
+		start = CommandProfiler.begin();
+		driveTrain.flushOutputs();
+		CommandProfiler.end(FLUSH_EVENT, start);
+		controlLoopMonitor.end();
+	}
+
+	private void startProfiling() {
+		CommandProfiler.reset();
+		CommandProfiler.setEnabled(SmartDashboard.getBoolean("Profile Commands", false));
+	}
+
+	/**
+	 * writes the Chrome trace of the last enabled period, if profiling was on
+	 */
+	private void dumpProfile() {
+		if (!CommandProfiler.isEnabled()) {
+			return;
+		}
+		CommandProfiler.setEnabled(false);
+		try {
+			CommandProfiler.dumpChromeTrace(TRACE_FILE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	public void log() {
 		Database.getInstance().log();
+		driveTrain.log();
+		GcMonitor.getInstance().log();
+		latency.log();
 	}
 
 	@Override
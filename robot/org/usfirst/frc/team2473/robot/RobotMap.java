@@ -23,6 +23,10 @@ public class RobotMap {
 
 	public static final int gyro = 0;
 
+	//where the telemetry stream is sent, the driver station's address on the robot network
+	public static final String telemetryHost = "10.24.73.5";
+	public static final int telemetryPort = 5800;
+
 
 	
 }
@@ -1,10 +1,5 @@
 package org.usfirst.frc.team2473.robot;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.DoubleSupplier;
-
 import org.usfirst.frc.team2473.robot.Database.Value;
 
 import edu.wpi.first.wpilibj.AnalogGyro;
@@ -15,21 +10,25 @@ import com.ctre.CANTalon.FeedbackDevice;
 
 public class SensorThread extends Thread{
 
+	public static final long ALLOCATION_BUDGET = 1024;//the bytes one poll of the sensors may allocate
+
 	//add new sensors here
 	AnalogGyro gyro;
 	CANTalon leftEncoder, rightEncoder;
 	private volatile boolean alive = true;
 	long lastTime;
 	int delay;
+	Clock clock;
+	private Clock.Task pollTask;//the polling task when the clock is not real time
+	private GcMonitor.Loop loopMonitor;
 
-	private Map<Database.Value, Double> tempMap;
-
-	//a map of how each value is called
-	private Map<Database.Value, DoubleSupplier> callMap;
+	//the sensors and how each value is called
+	private ChannelRegistry sensors;
 
-	public SensorThread(int delay) {
+	public SensorThread(int delay, Clock clock) {
 		
 		this.delay = delay;
+		this.clock = clock;
 		
 		//add new sensors here
 		this.gyro = Robot.gyro;
@@ -41,20 +40,28 @@ public class SensorThread extends Thread{
 
 		resetEncoders();
 
-		tempMap = new HashMap<>();
+		//add the sensor name in the Values enum and declare the method of the sensor that returns the sensor value.
+		sensors = new ChannelRegistry(clock)
+				.addDouble(Value.GYRO, () -> gyro.getAngle(), "deg", "Gyro Angle")
+				.addLong(Value.RIGHT_ENCODER, () -> rightEncoder.getEncPosition(), "counts", "Right Distance")
+				.addLong(Value.LEFT_ENCODER, () -> -leftEncoder.getEncPosition(), "counts", "Left Distance")
+				.compile();
 
-		callMap = new HashMap<>();
-
-		//add the sensor name in the Values enum and the method of the sensor that returns the sensor value.
-		callMap.put(Value.GYRO, () -> gyro.getAngle());
-		callMap.put(Value.RIGHT_ENCODER, () -> rightEncoder.getEncPosition() * Database.RIGHT_ENC_CONSTANT);
-		callMap.put(Value.LEFT_ENCODER, () ->  -leftEncoder.getEncPosition() * Database.LEFT_ENC_CONSTANT);
-		
-		
-		
-		callMap = Collections.unmodifiableMap(callMap);
+		loopMonitor = GcMonitor.getInstance().registerLoop("Sensor", delay, ALLOCATION_BUDGET);
 		super.setDaemon(true);
 	}
+
+	/**
+	 * starts polling the sensors. With a real time clock this starts the thread,
+	 * otherwise the polling is scheduled on the clock and runs as the clock advances
+	 */
+	public void startPolling() {
+		if (clock.isRealTime()) {
+			start();
+		} else {
+			pollTask = clock.schedulePeriodic(this::updateSensors, delay);
+		}
+	}
 	
 	/**
 	 * this method simulates the thread methods Thread.pause() and Thread.kill(). 
@@ -69,10 +76,10 @@ public class SensorThread extends Thread{
 				
 				updateSensors();
 				
-				lastTime = System.currentTimeMillis();
+				lastTime = clock.millis();
 				// Thread.yield();
 				try {
-					Thread.sleep(delay);
+					clock.sleep(delay);
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 				}
@@ -82,16 +89,15 @@ public class SensorThread extends Thread{
 
 	private void updateSensors()
 	{
+		loopMonitor.begin();
+
 		//snapshots a value for every sensor
-		for (Database.Value v : callMap.keySet()) {
-			tempMap.put(v, callMap.get(v).getAsDouble());
-		}
+		sensors.sample();
 		
 		//push those values to the database
-		for(Database.Value v : tempMap.keySet())
-		{
-			Database.getInstance().setValue(v, tempMap.get(v));
-		}
+		sensors.publish();
+
+		loopMonitor.end();
 	}
 	
 
@@ -100,6 +106,9 @@ public class SensorThread extends Thread{
 	 */
 	public void kill() {
 		alive = false;
+		if (pollTask != null) {
+			pollTask.cancel();
+		}
 		notify();
 	}
 
@@ -0,0 +1,96 @@
+package org.usfirst.frc.team2473.robot;
+
+import java.util.PriorityQueue;
+
+/**
+ * A clock that only moves when it is told to. Time starts at 0 and advance() steps it forward,
+ * running every periodic task that comes due on the calling thread, in time order.
+ * Tasks due at the same time run in the order they were scheduled, so a run is reproducible.<br>
+ * This clock is not thread-safe; all loops must be scheduled on it rather than started on their own threads.
+ * See HeadlessMatch for a full match run on it.
+ */
+public class VirtualClock implements Clock {
+
+	private static final long NANOS_PER_MILLI = 1000000;
+
+	private long now;
+	private long scheduled;
+	private PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+
+	private class ScheduledTask implements Task, Comparable<ScheduledTask> {
+		Runnable task;
+		long period;
+		long due;
+		long order;
+		boolean cancelled;
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			queue.remove(this);
+		}
+
+		@Override
+		public int compareTo(ScheduledTask other) {
+			if (due != other.due) {
+				return Long.compare(due, other.due);
+			}
+			return Long.compare(order, other.order);
+		}
+	}
+
+	@Override
+	public long millis() {
+		return now / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public long nanos() {
+		return now;
+	}
+
+	/**
+	 * advances the clock, since nothing else can
+	 */
+	@Override
+	public void sleep(long millis) {
+		advance(millis);
+	}
+
+	@Override
+	public Task schedulePeriodic(Runnable task, long periodMillis) {
+		if (periodMillis <= 0) {
+			throw new IllegalArgumentException("period must be positive");
+		}
+		ScheduledTask t = new ScheduledTask();
+		t.task = task;
+		t.period = periodMillis * NANOS_PER_MILLI;
+		t.due = now;
+		t.order = scheduled++;
+		queue.add(t);
+		return t;
+	}
+
+	@Override
+	public boolean isRealTime() {
+		return false;
+	}
+
+	/**
+	 * moves the clock forward, running every task that comes due on the way
+	 * @param millis the time to advance in milliseconds
+	 */
+	public void advance(long millis) {
+		long target = now + millis * NANOS_PER_MILLI;
+		while (!queue.isEmpty() && queue.peek().due <= target) {
+			ScheduledTask t = queue.poll();
+			now = t.due;
+			t.task.run();
+			if (!t.cancelled) {
+				t.due += t.period;
+				queue.add(t);
+			}
+		}
+		now = target;
+	}
+}
@@ -0,0 +1,170 @@
+package org.usfirst.frc.team2473.robot.commands;
+
+import org.usfirst.frc.team2473.robot.Database;
+import org.usfirst.frc.team2473.robot.LatencyTracker;
+import org.usfirst.frc.team2473.robot.Database.Value;
+
+/**
+ * The control law of the Drive command without any hardware: it turns the throttle, the wheel and the gyro
+ * into an arcade speed and rotation.<br>
+ * When the wheel is centered and the robot is moving it holds the heading it had when it started driving straight
+ * with a PID on the gyro. Otherwise it shapes the wheel with the speed.<br>
+ * Each instance keeps its own PID state, so many can run at once, ex. in the GainTuner.
+ * execute() is the body of Drive.execute, so the HeadlessMatch runs the same code as the robot.
+ */
+public class DriveController {
+
+	public static final double DEADZONE_AREA = 0.04;//wheel inputs smaller than this are treated as centered
+	public static final double MAX_CORRECTION = .70;//the largest rotation the heading PID can ask for
+
+	private DriveGains gains;
+
+	private boolean drivingStraight;//is the robot driving straight
+	private double startingGyroValue;//the gyro value when starting to drive straight
+	private double integral;
+	private double lastProportion;
+
+	private double speed;
+	private double rotate;
+
+	//the samples read every cycle, reused so reading does not allocate
+	private Database.Sample throttle = new Database.Sample();
+	private Database.Sample wheel = new Database.Sample();
+	private Database.Sample gyro = new Database.Sample();
+
+	/**
+	 * where execute() sends the output, ex. DriveTrain.driveArcade
+	 */
+	public interface Output {
+		void arcadeDrive(double speed, double rotate);
+	}
+
+	public DriveController() {
+		this(DriveGains.DEFAULT);
+	}
+
+	public DriveController(DriveGains gains) {
+		this.gains = gains;
+	}
+
+	/**
+	 * reads the throttle, the wheel and the gyro from the database, computes the next output and sends it.
+	 * Every sample the output depends on is passed to the latency tracker
+	 * @param database the database to read
+	 * @param latency the tracker to report the inputs to, the output reports the actuation
+	 * @param output where the speed and rotation go
+	 */
+	public void execute(Database database, LatencyTracker latency, Output output) {
+		database.getSample(Value.THROTTLE_VALUE, throttle);
+		database.getSample(Value.WHEEL_TWIST, wheel);
+		database.getSample(Value.GYRO, gyro);
+		latency.input(Value.THROTTLE_VALUE, throttle);
+		latency.input(Value.WHEEL_TWIST, wheel);
+
+		calculate(throttle.getValue(), wheel.getValue(), gyro.getValue());
+		if (drivingStraight) {
+			latency.input(Value.GYRO, gyro);
+		}
+		output.arcadeDrive(speed, rotate);
+	}
+
+	/**
+	 * computes the next output, read it with getSpeed() and getRotate()
+	 * @param throttleZ the raw throttle input
+	 * @param wheelX the raw wheel input
+	 * @param gyro the gyro angle
+	 */
+	public void calculate(double throttleZ, double wheelX, double gyro) {
+		double thrust = -sqrtWithSign(throttleZ*.75);
+
+		if(Math.abs(wheelX) < DEADZONE_AREA && Math.abs(thrust) > .05)
+		{
+			if(!drivingStraight)
+			{
+				drivingStraight = true;
+				startingGyroValue = gyro;
+				integral = 0;
+			}
+			speed = thrust;
+			rotate = driveStraight(gyro);
+		}
+		else
+		{
+			drivingStraight = false;
+			speed = thrust;
+			rotate = shapeWheel(-wheelX, throttleZ);
+		}
+	}
+
+	public double getSpeed() {
+		return speed;
+	}
+
+	public double getRotate() {
+		return rotate;
+	}
+
+	/**
+	 * @return whether the last output held the heading, so it depended on the gyro
+	 */
+	public boolean isDrivingStraight() {
+		return drivingStraight;
+	}
+
+	private double driveStraight(double gyro)
+	{
+		double proportion = gyro - startingGyroValue;
+		integral += proportion;
+		double derivative = proportion - lastProportion;
+		double rotate = gains.kp * proportion + gains.ki*integral + gains.kd*derivative;
+
+		if(Math.abs(rotate) > MAX_CORRECTION){
+			rotate = Math.signum(rotate) * MAX_CORRECTION;
+		}
+
+		lastProportion = proportion;
+		return rotate;
+	}
+
+	private static double shapedTurn(DriveGains gains, double rawIn, double speed)
+	{
+		return (gains.turnAdding + gains.turnMultiplication * Math.abs(speed)/2) * Math.abs(sqrtWithSign(rawIn)) + (1 - Math.abs(speed)/2) * gains.turnMultiplication;
+	}
+
+	/**
+	 * @param gains the gains
+	 * @return the largest turn the wheel shaping asks for before maxTurn limits it, with the wheel all the way over
+	 */
+	public static double peakTurn(DriveGains gains)
+	{
+		//the shaped turn is linear in the speed, so the peak is at no speed or at full speed
+		return Math.max(shapedTurn(gains, .8, 0), shapedTurn(gains, .8, 1));
+	}
+
+	private static double sqrtWithSign(double in)
+	{
+		return (in > 0)?Math.sqrt(in):-Math.sqrt(-in) ;
+	}
+
+	/**
+	 * 
+	 * @param rawIn the raw wheel input
+	 * @param speed the speed of the bot. Can be simply the thrust
+	 * @return a scaled value that should be the new turn factor
+	 */
+	private double shapeWheel(double rawIn, double speed)
+	{
+		double sign = Math.signum(rawIn);
+		double result = rawIn;
+		rawIn *= .8;
+
+		if(Math.abs(rawIn) < DEADZONE_AREA) return 0;
+
+		result = shapedTurn(gains, rawIn, speed);
+
+
+		if(result > gains.maxTurn) result = gains.maxTurn;
+
+		return result * sign;
+	}
+}
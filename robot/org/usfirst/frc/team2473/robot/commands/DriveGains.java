@@ -0,0 +1,40 @@
+package org.usfirst.frc.team2473.robot.commands;
+
+/**
+ * The gains and shaping constants of a DriveController. Instances are immutable.
+ * The constants below are the ones Drive uses on the robot, change them here after a GainTuner sweep.
+ */
+public class DriveGains {
+
+	public static final double SPEED_TURNING_MULTIPLICATION_CONSTANT = 0.30;
+	public static final double SPEED_TURNING_ADDING_CONSTANT = 0.70;
+	public static final double MAX_TURN = 0.8;
+	public static final double KP = 0;//.075;
+	public static final double KI = 0;//.003;
+	public static final double KD = 0;//.00;
+
+	/**
+	 * the gains Drive uses on the robot
+	 */
+	public static final DriveGains DEFAULT = new DriveGains(KP, KI, KD,
+			SPEED_TURNING_MULTIPLICATION_CONSTANT, SPEED_TURNING_ADDING_CONSTANT, MAX_TURN);
+
+	public final double kp, ki, kd;//the gains of the heading PID when driving straight
+	public final double turnMultiplication, turnAdding;//how the wheel is shaped with speed when turning
+	public final double maxTurn;//the largest shaped turn
+
+	public DriveGains(double kp, double ki, double kd, double turnMultiplication, double turnAdding, double maxTurn) {
+		this.kp = kp;
+		this.ki = ki;
+		this.kd = kd;
+		this.turnMultiplication = turnMultiplication;
+		this.turnAdding = turnAdding;
+		this.maxTurn = maxTurn;
+	}
+
+	@Override
+	public String toString() {
+		return "KP=" + kp + " KI=" + ki + " KD=" + kd + " turnMultiplication=" + turnMultiplication
+				+ " turnAdding=" + turnAdding + " maxTurn=" + maxTurn;
+	}
+}
@@ -0,0 +1,103 @@
+package org.usfirst.frc.team2473.robot.commands;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.usfirst.frc.team2473.robot.CommandProfiler;
+
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * A Command whose lifecycle calls are timed by the CommandProfiler.<br>
+ * Extend this instead of Command and override doInitialize, doExecute, doIsFinished, doEnd and doInterrupted
+ * instead of the Command methods, which are final here.
+ * The event names are registered once per class, so commands that are created again, ex. in autonomousInit,
+ * reuse them.
+ */
+public abstract class ProfiledCommand extends Command {
+
+	//the event ids of every class, in the order initialize, execute, isFinished, end, interrupted
+	private static final Map<Class<?>, int[]> classEvents = new HashMap<>();
+
+	private final int initializeEvent, executeEvent, isFinishedEvent, endEvent, interruptedEvent;
+
+	public ProfiledCommand() {
+		super();
+		int[] events = events(getClass(), getName());
+		initializeEvent = events[0];
+		executeEvent = events[1];
+		isFinishedEvent = events[2];
+		endEvent = events[3];
+		interruptedEvent = events[4];
+	}
+
+	private static synchronized int[] events(Class<?> type, String name) {
+		int[] events = classEvents.get(type);
+		if (events == null) {
+			events = new int[] {
+					CommandProfiler.register(name + ".initialize", "command"),
+					CommandProfiler.register(name + ".execute", "command"),
+					CommandProfiler.register(name + ".isFinished", "command"),
+					CommandProfiler.register(name + ".end", "command"),
+					CommandProfiler.register(name + ".interrupted", "command") };
+			classEvents.put(type, events);
+		}
+		return events;
+	}
+
+	@Override
+	protected final void initialize() {
+		long start = CommandProfiler.begin();
+		doInitialize();
+		CommandProfiler.end(initializeEvent, start);
+	}
+
+	@Override
+	protected final void execute() {
+		long start = CommandProfiler.begin();
+		doExecute();
+		CommandProfiler.end(executeEvent, start);
+	}
+
+	@Override
+	protected final boolean isFinished() {
+		long start = CommandProfiler.begin();
+		boolean finished = doIsFinished();
+		CommandProfiler.end(isFinishedEvent, start);
+		return finished;
+	}
+
+	@Override
+	protected final void end() {
+		long start = CommandProfiler.begin();
+		doEnd();
+		CommandProfiler.end(endEvent, start);
+	}
+
+	@Override
+	protected final void interrupted() {
+		long start = CommandProfiler.begin();
+		doInterrupted();
+		CommandProfiler.end(interruptedEvent, start);
+	}
+
+	// Called just before this Command runs the first time
+	protected void doInitialize() {
+	}
+
+	// Called repeatedly when this Command is scheduled to run
+	protected void doExecute() {
+	}
+
+	// Make this return true when this Command no longer needs to run execute()
+	protected abstract boolean doIsFinished();
+
+	// Called once after isFinished returns true
+	protected void doEnd() {
+	}
+
+	// Called when another command which requires one or more of the same
+	// subsystems is scheduled to run
+	protected void doInterrupted() {
+	}
+}
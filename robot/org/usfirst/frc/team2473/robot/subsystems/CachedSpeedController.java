@@ -0,0 +1,108 @@
+package org.usfirst.frc.team2473.robot.subsystems;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * A write-through cache in front of a speed controller, ex. a CANTalon.<br>
+ * set() only records the command. flush() sends it to the controller once per control cycle, and only if it moved
+ * by at least the threshold since the last write, the motor is being stopped, or refreshCycles cycles passed
+ * without a write (so the controller never holds a stale command for long).
+ * Stopping and disabling are written through immediately.
+ * The frame counters show how many set-commands actually went out on the CAN bus.
+ */
+public class CachedSpeedController implements SpeedController {
+
+	private SpeedController controller;
+	private double threshold;
+	private int refreshCycles;
+
+	private double pending;
+	private double lastWritten = Double.NaN;//nothing has been written yet
+	private int cyclesSinceWrite;
+
+	private long framesWritten;
+	private long framesSuppressed;
+
+	/**
+	 * @param controller the controller to write to
+	 * @param threshold the smallest change in output that is written
+	 * @param refreshCycles the most flushes in a row that can be suppressed
+	 */
+	public CachedSpeedController(SpeedController controller, double threshold, int refreshCycles) {
+		this.controller = controller;
+		this.threshold = threshold;
+		this.refreshCycles = refreshCycles;
+	}
+
+	@Override
+	public synchronized void set(double speed) {
+		pending = speed;
+	}
+
+	@Override
+	public synchronized double get() {
+		return pending;
+	}
+
+	@Override
+	public void pidWrite(double output) {
+		set(output);
+	}
+
+	/**
+	 * writes the pending command to the controller if it needs to be
+	 * @return whether a frame was written
+	 */
+	public synchronized boolean flush() {
+		cyclesSinceWrite++;
+		boolean write = Double.isNaN(lastWritten)
+				|| Math.abs(pending - lastWritten) >= threshold
+				|| (pending == 0 && lastWritten != 0)
+				|| cyclesSinceWrite >= refreshCycles;
+		if (!write) {
+			framesSuppressed++;
+			return false;
+		}
+		controller.set(pending);
+		lastWritten = pending;
+		cyclesSinceWrite = 0;
+		framesWritten++;
+		return true;
+	}
+
+	@Override
+	public synchronized void stopMotor() {
+		controller.stopMotor();
+		pending = 0;
+		lastWritten = 0;
+		cyclesSinceWrite = 0;
+		framesWritten++;
+	}
+
+	@Override
+	public synchronized void disable() {
+		controller.disable();
+		pending = 0;
+		lastWritten = 0;
+		cyclesSinceWrite = 0;
+		framesWritten++;
+	}
+
+	@Override
+	public void setInverted(boolean isInverted) {
+		controller.setInverted(isInverted);
+	}
+
+	@Override
+	public boolean getInverted() {
+		return controller.getInverted();
+	}
+
+	public synchronized long getFramesWritten() {
+		return framesWritten;
+	}
+
+	public synchronized long getFramesSuppressed() {
+		return framesSuppressed;
+	}
+}
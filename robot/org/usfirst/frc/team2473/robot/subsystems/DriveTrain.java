@@ -20,21 +20,24 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  *
  */
 public class DriveTrain extends Subsystem {
+
+	public static final double OUTPUT_THRESHOLD = 0.005;//the smallest change in output that is sent to a talon
+	public static final int OUTPUT_REFRESH_CYCLES = 10;//every talon is written at least this often, in control cycles
     
-	private SpeedController  leftFrontCAN;
-	private SpeedController rightFrontCAN;
-	private SpeedController leftBackCAN;
-	private SpeedController rightBackCAN;
+	private CachedSpeedController leftFrontCAN;
+	private CachedSpeedController rightFrontCAN;
+	private CachedSpeedController leftBackCAN;
+	private CachedSpeedController rightBackCAN;
 
 	private RobotDrive drive;
 	
 	public DriveTrain (){
 		super();
 		
-		leftFrontCAN = new CANTalon(RobotMap.leftFrontMotor);
-		rightFrontCAN = new CANTalon(RobotMap.rightFrontMotor);
-		leftBackCAN = new CANTalon(RobotMap.leftBackMotor);
-		rightBackCAN = new CANTalon(RobotMap.rightBackMotor);
+		leftFrontCAN = cached(new CANTalon(RobotMap.leftFrontMotor));
+		rightFrontCAN = cached(new CANTalon(RobotMap.rightFrontMotor));
+		leftBackCAN = cached(new CANTalon(RobotMap.leftBackMotor));
+		rightBackCAN = cached(new CANTalon(RobotMap.rightBackMotor));
 		
 		drive = new RobotDrive(leftFrontCAN, leftBackCAN, rightFrontCAN, rightBackCAN);
 		
@@ -47,18 +50,51 @@ public class DriveTrain extends Subsystem {
 		
 	}
 
+	private static CachedSpeedController cached(SpeedController controller) {
+		return new CachedSpeedController(controller, OUTPUT_THRESHOLD, OUTPUT_REFRESH_CYCLES);
+	}
+
     public void initDefaultCommand() {
          setDefaultCommand(new Drive());
     }
     
     public void drive(double left, double right) {
     	drive.tankDrive(left, right);
+    	Robot.latency.actuate();
    
 	}
 
+    /**
+     * sets the arcade outputs, they are written to the talons by flushOutputs(). Input ages are measured here
+     */
     public void driveArcade(double speed, double rotate) {
     	drive.arcadeDrive(speed, rotate);
+    	Robot.latency.actuate();
    
 	}
-}
 
+    /**
+     * writes all four drive outputs to the talons. Call this once at the end of every control cycle
+     */
+    public void flushOutputs() {
+    	leftFrontCAN.flush();
+    	leftBackCAN.flush();
+    	rightFrontCAN.flush();
+    	rightBackCAN.flush();
+    }
+
+    /**
+     * logs the CAN frames written and suppressed for each talon
+     */
+    public void log() {
+    	log("Left Front", leftFrontCAN);
+    	log("Left Back", leftBackCAN);
+    	log("Right Front", rightFrontCAN);
+    	log("Right Back", rightBackCAN);
+    }
+
+    private void log(String name, CachedSpeedController controller) {
+    	SmartDashboard.putNumber(name + " Frames Written", controller.getFramesWritten());
+    	SmartDashboard.putNumber(name + " Frames Suppressed", controller.getFramesSuppressed());
+    }
+}
@@ -0,0 +1,83 @@
+package org.usfirst.frc.team2473.robot.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format shared by the TelemetryStreamer and the TelemetryReceiver.<br>
+ * A packet is a small header followed by a batch of frames:
+ * <pre>
+ * short magic, byte version, byte valueCount, byte buttonCount, byte frameCount
+ * frame: varint sequenceDelta, varint timeDelta, valueCount XOR words, one XOR word for the buttons
+ * </pre>
+ * Every word is XOR'd against the same word in the previous frame of the packet. The first frame of a packet
+ * is encoded against zero, so a dropped datagram never breaks the decoding of the next one.
+ * A XOR word is written as one header byte (trailing zero bytes in the high nibble, significant bytes in the low nibble)
+ * followed by the significant bytes, so an unchanged value costs a single byte.
+ */
+class TelemetryCodec {
+
+	static final short MAGIC = 0x2473;
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 6;
+	/**
+	 * the offset of the frame count inside the header, it is patched in once the packet is full
+	 */
+	static final int FRAME_COUNT_OFFSET = 5;
+	/**
+	 * the worst case size of a frame is two 10 byte varints and a 9 byte XOR word per value and for the buttons
+	 */
+	static int maxFrameSize(int valueCount) {
+		return 2 * 10 + (valueCount + 1) * 9;
+	}
+
+	private TelemetryCodec() {
+	}
+
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static long getVarLong(ByteBuffer buffer) {
+		long result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			result |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+	static void putXor(ByteBuffer buffer, long xor) {
+		if (xor == 0) {
+			buffer.put((byte) 0);
+			return;
+		}
+		int trailing = Long.numberOfTrailingZeros(xor) / 8;
+		int significant = 8 - Long.numberOfLeadingZeros(xor) / 8 - trailing;
+		buffer.put((byte) (trailing << 4 | significant));
+		long shifted = xor >>> (trailing * 8);
+		for (int i = significant - 1; i >= 0; i--) {
+			buffer.put((byte) (shifted >>> (i * 8)));
+		}
+	}
+
+	static long getXor(ByteBuffer buffer) {
+		int header = buffer.get() & 0xFF;
+		if (header == 0) {
+			return 0;
+		}
+		int trailing = header >>> 4;
+		int significant = header & 0x0F;
+		long shifted = 0;
+		for (int i = 0; i < significant; i++) {
+			shifted = shifted << 8 | (buffer.get() & 0xFF);
+		}
+		return shifted << (trailing * 8);
+	}
+}
@@ -0,0 +1,132 @@
+package org.usfirst.frc.team2473.robot.telemetry;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.usfirst.frc.team2473.robot.Database.ButtonName;
+import org.usfirst.frc.team2473.robot.Database.Value;
+
+/**
+ * A small program for the driver station that receives the TelemetryStreamer datagrams and writes them out as CSV.<br>
+ * Usage: <code>java org.usfirst.frc.team2473.robot.telemetry.TelemetryReceiver [port] [file]</code><br>
+ * With no file the CSV goes to standard out. Datagrams that are not telemetry packets, or are truncated, are dropped
+ * and counted, and the capture keeps going.
+ */
+public class TelemetryReceiver {
+
+	private static final Value[] VALUES = Value.values();
+	private static final ButtonName[] BUTTONS = ButtonName.values();
+
+	private PrintWriter out;
+	private long[] words = new long[VALUES.length];
+	private StringBuilder packet = new StringBuilder();
+	private long droppedPackets;
+
+	public TelemetryReceiver(PrintWriter out) {
+		this.out = out;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 5800;
+		PrintWriter out = args.length > 1 ? new PrintWriter(new FileWriter(args[1])) : new PrintWriter(System.out);
+
+		TelemetryReceiver receiver = new TelemetryReceiver(out);
+		receiver.writeHeader();
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			channel.bind(new InetSocketAddress(port));
+			ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+			while (true) {
+				buffer.clear();
+				channel.receive(buffer);
+				buffer.flip();
+				if (receiver.decode(buffer) < 0) {
+					System.err.println("dropped packet " + receiver.getDroppedPackets());
+				}
+				out.flush();
+			}
+		}
+	}
+
+	public void writeHeader() {
+		packet.setLength(0);
+		packet.append("sequence,timestamp");
+		for (Value v : VALUES) {
+			packet.append(',').append(v.name());
+		}
+		for (ButtonName b : BUTTONS) {
+			packet.append(',').append(b.name());
+		}
+		out.println(packet);
+	}
+
+	/**
+	 * decodes one datagram and writes a CSV line per frame
+	 * @param buffer the datagram, positioned at its start
+	 * @return the number of frames written, or -1 if the datagram is not a complete telemetry packet of this version
+	 */
+	public int decode(ByteBuffer buffer) {
+		try {
+			return decodeFrames(buffer);
+		} catch (BufferUnderflowException e) {
+			//a truncated packet, or a stray packet that happens to start with the magic bytes
+			droppedPackets++;
+			return -1;
+		}
+	}
+
+	public long getDroppedPackets() {
+		return droppedPackets;
+	}
+
+	private int decodeFrames(ByteBuffer buffer) {
+		if (buffer.remaining() < TelemetryCodec.HEADER_SIZE || buffer.getShort() != TelemetryCodec.MAGIC
+				|| buffer.get() != TelemetryCodec.VERSION) {
+			droppedPackets++;
+			return -1;
+		}
+		int valueCount = buffer.get() & 0xFF;
+		int buttonCount = buffer.get() & 0xFF;
+		int frameCount = buffer.get() & 0xFF;
+		if (valueCount != VALUES.length || buttonCount != BUTTONS.length) {
+			//the robot was built with a different Database layout
+			droppedPackets++;
+			return -1;
+		}
+
+		//the lines are only written once the whole packet decoded
+		packet.setLength(0);
+		long sequence = 0, time = 0, buttons = 0;
+		for (int i = 0; i < words.length; i++) {
+			words[i] = 0;
+		}
+		for (int frame = 0; frame < frameCount; frame++) {
+			sequence += TelemetryCodec.getVarLong(buffer);
+			time += TelemetryCodec.getVarLong(buffer);
+			for (int i = 0; i < words.length; i++) {
+				words[i] ^= TelemetryCodec.getXor(buffer);
+			}
+			buttons ^= TelemetryCodec.getXor(buffer);
+
+			packet.append(sequence).append(',').append(time);
+			for (int i = 0; i < words.length; i++) {
+				packet.append(',').append(Double.longBitsToDouble(words[i]));
+			}
+			for (int i = 0; i < buttonCount; i++) {
+				packet.append(',').append((buttons >>> i & 1) != 0);
+			}
+			packet.append(System.lineSeparator());
+		}
+		if (buffer.hasRemaining()) {
+			//more bytes than the header announced, so this is not one of our packets
+			droppedPackets++;
+			return -1;
+		}
+		out.print(packet);
+		return frameCount;
+	}
+}
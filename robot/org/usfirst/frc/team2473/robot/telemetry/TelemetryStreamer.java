@@ -0,0 +1,188 @@
+package org.usfirst.frc.team2473.robot.telemetry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.usfirst.frc.team2473.robot.Clock;
+import org.usfirst.frc.team2473.robot.Database;
+import org.usfirst.frc.team2473.robot.GcMonitor;
+import org.usfirst.frc.team2473.robot.Database.ButtonName;
+import org.usfirst.frc.team2473.robot.Database.Value;
+
+/**
+ * A thread that snapshots the Database every delay milliseconds and streams the frames as compact binary UDP datagrams.
+ * Each frame holds every Value, the button bits, a sequence number and a timestamp.
+ * Frames are XOR encoded against the previous frame and batched framesPerPacket to a datagram (see TelemetryCodec).
+ * The frame arrays and the direct buffer are allocated once, so streaming a frame does not allocate.
+ * Use the TelemetryReceiver on the driver station to decode the stream.
+ */
+public class TelemetryStreamer extends Thread {
+
+	public static final long ALLOCATION_BUDGET = 1024;//the bytes one frame may allocate
+
+	private static final Value[] VALUES = Value.values();
+	private static final ButtonName[] BUTTONS = ButtonName.values();
+
+	private volatile boolean alive = true;
+	private int delay;
+	private int framesPerPacket;
+	private Clock clock;
+	private Clock.Task streamTask;//the streaming task when the clock is not real time
+	private GcMonitor.Loop loopMonitor;
+
+	private DatagramChannel channel;
+	private InetSocketAddress destination;
+	private ByteBuffer buffer;
+
+	private long sequence;
+	private int framesInPacket;
+	private long lastSequence, lastTime, lastButtons;
+	private long[] current = new long[VALUES.length];
+	private long[] last = new long[VALUES.length];
+
+	/**
+	 * @param clock the clock that timestamps and paces the frames
+	 * @param destination where the datagrams are sent, usually the driver station
+	 * @param delay the time between frames in milliseconds
+	 * @param framesPerPacket how many frames are batched into a single datagram
+	 * @throws IOException if the datagram channel cannot be opened
+	 */
+	public TelemetryStreamer(Clock clock, InetSocketAddress destination, int delay, int framesPerPacket)
+			throws IOException {
+		if (framesPerPacket < 1 || framesPerPacket > 255) {
+			throw new IllegalArgumentException("framesPerPacket must be between 1 and 255");
+		}
+		if (BUTTONS.length > 64) {
+			throw new IllegalStateException("only 64 buttons fit in a telemetry frame");
+		}
+		this.clock = clock;
+		this.destination = destination;
+		this.delay = delay;
+		this.framesPerPacket = framesPerPacket;
+
+		channel = DatagramChannel.open();
+		buffer = ByteBuffer.allocateDirect(
+				TelemetryCodec.HEADER_SIZE + framesPerPacket * TelemetryCodec.maxFrameSize(VALUES.length));
+		startPacket();
+		loopMonitor = GcMonitor.getInstance().registerLoop("Telemetry", delay, ALLOCATION_BUDGET);
+		super.setDaemon(true);
+	}
+
+	/**
+	 * starts streaming. With a real time clock this starts the thread,
+	 * otherwise the streaming is scheduled on the clock and runs as the clock advances
+	 */
+	public void startStreaming() {
+		if (clock.isRealTime()) {
+			start();
+		} else {
+			streamTask = clock.schedulePeriodic(this::step, delay);
+		}
+	}
+
+	@Override
+	public void run() {
+		while (alive) {
+			step();
+			try {
+				clock.sleep(delay);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		flushRemaining();
+	}
+
+	private void step() {
+		loopMonitor.begin();
+		addFrame(clock.millis());
+		if (framesInPacket == framesPerPacket) {
+			flush();
+		}
+		loopMonitor.end();
+	}
+
+	private void startPacket() {
+		buffer.clear();
+		buffer.putShort(TelemetryCodec.MAGIC);
+		buffer.put(TelemetryCodec.VERSION);
+		buffer.put((byte) VALUES.length);
+		buffer.put((byte) BUTTONS.length);
+		buffer.put((byte) 0);// the frame count, patched in flush()
+
+		//the first frame of every packet is encoded against zero
+		framesInPacket = 0;
+		lastSequence = 0;
+		lastTime = 0;
+		lastButtons = 0;
+		for (int i = 0; i < last.length; i++) {
+			last[i] = 0;
+		}
+	}
+
+	private void addFrame(long time) {
+		Database database = Database.getInstance();
+		for (int i = 0; i < VALUES.length; i++) {
+			current[i] = Double.doubleToLongBits(database.getValue(VALUES[i]));
+		}
+		long buttons = 0;
+		for (int i = 0; i < BUTTONS.length; i++) {
+			if (database.getButton(BUTTONS[i]).get()) {
+				buttons |= 1L << i;
+			}
+		}
+
+		sequence++;
+		TelemetryCodec.putVarLong(buffer, sequence - lastSequence);
+		TelemetryCodec.putVarLong(buffer, time - lastTime);
+		for (int i = 0; i < VALUES.length; i++) {
+			TelemetryCodec.putXor(buffer, current[i] ^ last[i]);
+			last[i] = current[i];
+		}
+		TelemetryCodec.putXor(buffer, buttons ^ lastButtons);
+
+		lastSequence = sequence;
+		lastTime = time;
+		lastButtons = buttons;
+		framesInPacket++;
+	}
+
+	/**
+	 * sends the frames of a packet that is not full yet
+	 */
+	private void flushRemaining() {
+		if (framesInPacket > 0) {
+			flush();
+		}
+	}
+
+	private void flush() {
+		buffer.put(TelemetryCodec.FRAME_COUNT_OFFSET, (byte) framesInPacket);
+		buffer.flip();
+		try {
+			channel.send(buffer, destination);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		startPacket();
+	}
+
+	/**
+	 * kills this thread. Stops any future streaming, and sends the frames still waiting for a full packet.
+	 * The thread may add one last frame to them before it sends them
+	 */
+	public void kill() {
+		alive = false;
+		if (streamTask != null) {
+			//the task runs on the clock's thread, which is this one
+			streamTask.cancel();
+			flushRemaining();
+		}
+	}
+
+	public boolean isDead() {
+		return !alive;
+	}
+}
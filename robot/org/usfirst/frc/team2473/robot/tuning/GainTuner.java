@@ -0,0 +1,247 @@
+package org.usfirst.frc.team2473.robot.tuning;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.usfirst.frc.team2473.robot.commands.DriveController;
+import org.usfirst.frc.team2473.robot.commands.DriveGains;
+
+/**
+ * A headless tool that tunes the Drive gains and wheel shaping against the SimulatedDriveTrain.<br>
+ * It scores a grid of candidates plus random ones on every Maneuver, in parallel on a fork-join pool with one worker
+ * per core, and writes a ranked CSV report. Lower scores are better. Each candidate runs its own DriveController and
+ * simulation, and the gyro noise is seeded per maneuver, so every candidate sees the same conditions and a sweep is
+ * reproducible.<br>
+ * Usage: <code>java org.usfirst.frc.team2473.robot.tuning.GainTuner [randomCandidates] [reportFile] [seed]</code>
+ */
+public class GainTuner {
+
+	public static final double TIME_STEP = 0.02;//seconds, the Scheduler period
+	public static final double LEFT_EFFICIENCY = 0.92;
+	public static final double SETTLE_TOLERANCE = 2;//degrees
+	public static final int SPLIT_THRESHOLD = 32;//candidates scored by one fork-join task without splitting
+
+	//the score is the weighted sum of the three measures over all maneuvers
+	public static final double HEADING_WEIGHT = 1;//per degree of mean heading error
+	public static final double SETTLING_WEIGHT = 2;//per second of settling
+	public static final double SMOOTHNESS_WEIGHT = 10;//per unit of summed squared rotation change
+
+	//the grid
+	public static final double[] KP_GRID = { 0, .01, .025, .05, .075, .1, .15, .2 };
+	public static final double[] KI_GRID = { 0, .001, .003, .006, .01 };
+	public static final double[] KD_GRID = { 0, .05, .1, .2, .4 };
+	public static final double[] TURN_MULTIPLICATION_GRID = { 0, .1, .2, .3, .4 };
+	public static final double[] TURN_ADDING_GRID = { .4, .5, .6, .7, .8, .9, 1, 1.1, 1.2 };
+	public static final double[] MAX_TURN_GRID = { .5, .6, .7, .8, .9, 1 };
+
+	/**
+	 * a set of gains and how they scored
+	 */
+	public static class Candidate {
+		public final DriveGains gains;
+		public double headingError;
+		public double settlingTime;
+		public double smoothness;
+		public double score;
+
+		public Candidate(DriveGains gains) {
+			this.gains = gains;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int randomCandidates = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		String reportFile = args.length > 1 ? args[1] : "tuning-report.csv";
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 2473;
+
+		List<Candidate> candidates = new ArrayList<>();
+		Candidate current = new Candidate(DriveGains.DEFAULT);
+		candidates.add(current);
+		candidates.addAll(grid());
+		candidates.addAll(random(randomCandidates, new Random(seed)));
+
+		long start = System.nanoTime();
+		Candidate[] ranked = sweep(candidates.toArray(new Candidate[candidates.size()]));
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("scored %d candidates in %.2f s on %d cores (%.0f per minute)%n", ranked.length, seconds,
+				Runtime.getRuntime().availableProcessors(), ranked.length / seconds * 60);
+		for (int i = 0; i < Math.min(10, ranked.length); i++) {
+			System.out.printf("%2d. score %.3f  %s%n", i + 1, ranked[i].score, ranked[i].gains);
+		}
+		System.out.printf("current gains: rank %d, score %.3f%n", Arrays.asList(ranked).indexOf(current) + 1,
+				current.score);
+
+		try (PrintWriter out = new PrintWriter(new FileWriter(reportFile))) {
+			writeReport(ranked, out);
+		}
+		System.out.println("report written to " + reportFile);
+	}
+
+	/**
+	 * scores every candidate in parallel
+	 * @param candidates the candidates, scored in place
+	 * @return the candidates sorted from best to worst
+	 */
+	public static Candidate[] sweep(Candidate[] candidates) {
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			pool.invoke(new ScoreTask(candidates, 0, candidates.length));
+		} finally {
+			pool.shutdown();
+		}
+		Candidate[] ranked = candidates.clone();
+		Arrays.sort(ranked, Comparator.comparingDouble((Candidate c) -> c.score));
+		return ranked;
+	}
+
+	private static class ScoreTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Candidate[] candidates;
+		private int from, to;
+
+		ScoreTask(Candidate[] candidates, int from, int to) {
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SPLIT_THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					score(candidates[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ScoreTask(candidates, from, middle), new ScoreTask(candidates, middle, to));
+		}
+	}
+
+	/**
+	 * runs every maneuver with the candidate's gains and scores it
+	 * @param candidate the candidate, scored in place
+	 */
+	public static void score(Candidate candidate) {
+		candidate.headingError = 0;
+		candidate.settlingTime = 0;
+		candidate.smoothness = 0;
+		for (Maneuver maneuver : Maneuver.values()) {
+			run(maneuver, candidate);
+		}
+		candidate.score = HEADING_WEIGHT * candidate.headingError + SETTLING_WEIGHT * candidate.settlingTime
+				+ SMOOTHNESS_WEIGHT * candidate.smoothness;
+	}
+
+	private static void run(Maneuver maneuver, Candidate candidate) {
+		DriveController controller = new DriveController(candidate.gains);
+		SimulatedDriveTrain sim = new SimulatedDriveTrain(LEFT_EFFICIENCY, maneuver.ordinal());
+
+		int steps = (int) Math.round(maneuver.getDuration() / TIME_STEP);
+		double reference = 0;
+		boolean turning = false;
+		double lastRotate = 0;
+		double errorSum = 0, smoothness = 0;
+		double lastUnsettled = maneuver.getSettleFrom();
+
+		for (int i = 0; i < steps; i++) {
+			double t = i * TIME_STEP;
+			double wheel = maneuver.wheel(t);
+
+			controller.calculate(maneuver.throttle(t), wheel, sim.getGyro());
+			sim.arcadeDrive(controller.getSpeed(), controller.getRotate());
+			smoothness += (controller.getRotate() - lastRotate) * (controller.getRotate() - lastRotate);
+			lastRotate = controller.getRotate();
+
+			sim.bump(maneuver.bump(t, TIME_STEP));
+			sim.step(TIME_STEP);
+
+			//the driver wants to turn with the wheel, and to hold the heading they let go of the wheel at
+			if (Math.abs(wheel) >= DriveController.DEADZONE_AREA) {
+				reference += wheel * Maneuver.REFERENCE_TURN_RATE * TIME_STEP;
+				turning = true;
+			} else if (turning) {
+				reference = sim.getHeading();
+				turning = false;
+			}
+
+			double error = Math.abs(sim.getHeading() - reference);
+			errorSum += error * TIME_STEP;
+			if (error > SETTLE_TOLERANCE && t + TIME_STEP > maneuver.getSettleFrom()) {
+				lastUnsettled = t + TIME_STEP;
+			}
+		}
+
+		candidate.headingError += errorSum / maneuver.getDuration();
+		candidate.smoothness += smoothness;
+		if (maneuver.getSettleFrom() >= 0) {
+			candidate.settlingTime += lastUnsettled - maneuver.getSettleFrom();
+		}
+	}
+
+	/**
+	 * @return every combination of the grid values. A maxTurn above the peak shaped turn never limits anything,
+	 * so only the first such maxTurn is kept instead of several candidates that drive the same
+	 */
+	public static List<Candidate> grid() {
+		List<Candidate> grid = new ArrayList<>();
+		for (double kp : KP_GRID)
+			for (double ki : KI_GRID)
+				for (double kd : KD_GRID)
+					for (double multiplication : TURN_MULTIPLICATION_GRID)
+						for (double adding : TURN_ADDING_GRID)
+							for (double maxTurn : MAX_TURN_GRID) {
+								DriveGains gains = new DriveGains(kp, ki, kd, multiplication, adding, maxTurn);
+								grid.add(new Candidate(gains));
+								if (maxTurn >= DriveController.peakTurn(gains)) {
+									break;
+								}
+							}
+		return grid;
+	}
+
+	/**
+	 * @param count how many candidates to draw
+	 * @param random the source of the candidates
+	 * @return candidates drawn uniformly from the range of the grid
+	 */
+	public static List<Candidate> random(int count, Random random) {
+		List<Candidate> candidates = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			candidates.add(new Candidate(new DriveGains(
+					uniform(random, KP_GRID),
+					uniform(random, KI_GRID),
+					uniform(random, KD_GRID),
+					uniform(random, TURN_MULTIPLICATION_GRID),
+					uniform(random, TURN_ADDING_GRID),
+					uniform(random, MAX_TURN_GRID))));
+		}
+		return candidates;
+	}
+
+	private static double uniform(Random random, double[] grid) {
+		double min = grid[0], max = grid[grid.length - 1];
+		return min + random.nextDouble() * (max - min);
+	}
+
+	public static void writeReport(Candidate[] ranked, PrintWriter out) {
+		out.println("rank,score,kp,ki,kd,turnMultiplication,turnAdding,maxTurn,headingError,settlingTime,smoothness");
+		for (int i = 0; i < ranked.length; i++) {
+			Candidate c = ranked[i];
+			out.printf("%d,%.4f,%.5f,%.5f,%.5f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n", i + 1, c.score, c.gains.kp,
+					c.gains.ki, c.gains.kd, c.gains.turnMultiplication, c.gains.turnAdding, c.gains.maxTurn,
+					c.headingError, c.settlingTime, c.smoothness);
+		}
+	}
+}
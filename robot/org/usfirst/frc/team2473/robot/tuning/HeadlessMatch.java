@@ -0,0 +1,164 @@
+package org.usfirst.frc.team2473.robot.tuning;
+
+import org.usfirst.frc.team2473.robot.ChannelRegistry;
+import org.usfirst.frc.team2473.robot.Database;
+import org.usfirst.frc.team2473.robot.Database.Value;
+import org.usfirst.frc.team2473.robot.GcMonitor;
+import org.usfirst.frc.team2473.robot.LatencyTracker;
+import org.usfirst.frc.team2473.robot.Robot;
+import org.usfirst.frc.team2473.robot.VirtualClock;
+import org.usfirst.frc.team2473.robot.commands.DriveController;
+
+/**
+ * Runs a full match without hardware on a VirtualClock.<br>
+ * The robot loops are scheduled on the clock at their real periods: the SimulatedDriveTrain physics and the sensor poll
+ * every 5 ms, and the joystick poll and the control cycle every 20 ms, CONTROL_PHASE apart. The sensors and joysticks go through
+ * ChannelRegistry into the Database like on the robot, the joysticks being driven by the Maneuver scripts one after
+ * another. The control cycle runs DriveController.execute, the body of Drive.execute, with the SimulatedDriveTrain as
+ * its output and its own LatencyTracker. The WPILib Scheduler and the Drive command itself need the HAL, so they are
+ * not part of the run.<br>
+ * Every control output and heading is folded into a digest, so two runs can be compared bit for bit.
+ * The control cycle is a GcMonitor loop with the robot's allocation budget, and main() enforces the budgets,
+ * so a control cycle that allocates too much fails the run.<br>
+ * Usage: <code>java org.usfirst.frc.team2473.robot.tuning.HeadlessMatch</code> runs the match twice and exits with
+ * status 1 if the runs differ.
+ */
+public class HeadlessMatch {
+
+	public static final long MATCH_MILLIS = 150000;
+	public static final long SENSOR_PERIOD = 5;//milliseconds, matches SensorThread
+	public static final long CONTROL_PERIOD = 20;//milliseconds, matches the Scheduler loop and teleopPeriodic
+	public static final long CONTROL_PHASE = 7;//milliseconds the control cycle runs after the joystick poll, they are not in step on the robot
+
+	private VirtualClock clock = new VirtualClock();
+	private SimulatedDriveTrain sim;
+	private DriveController controller = new DriveController();
+	private LatencyTracker latency = new LatencyTracker(clock);
+	private DriveController.Output output = (speed, rotate) -> {
+		sim.arcadeDrive(speed, rotate);
+		latency.actuate();
+	};
+	private ChannelRegistry sensors, joysticks;
+	private GcMonitor.Loop controlLoopMonitor = GcMonitor.getInstance().registerLoop("Headless Control", CONTROL_PERIOD,
+			Robot.CONTROL_ALLOCATION_BUDGET);
+	private long digest;
+
+	/**
+	 * @param seed the seed of the gyro noise
+	 */
+	public HeadlessMatch(long seed) {
+		sim = new SimulatedDriveTrain(GainTuner.LEFT_EFFICIENCY, seed);
+	}
+
+	/**
+	 * runs the match. A HeadlessMatch can only be run once
+	 * @return the digest of every control output and heading
+	 */
+	public long run() {
+		sensors = new ChannelRegistry(clock)
+				.addDouble(Value.GYRO, () -> sim.getGyro(), "deg", "Gyro Angle")
+				.addLong(Value.RIGHT_ENCODER, () -> sim.getRightCounts(), "counts", "Right Distance")
+				.addLong(Value.LEFT_ENCODER, () -> sim.getLeftCounts(), "counts", "Left Distance")
+				.compile();
+		joysticks = new ChannelRegistry(clock)
+				.addDouble(Value.WHEEL_TWIST, () -> maneuver().wheel(maneuverTime()), "fraction", "Wheel Twist")
+				.addDouble(Value.THROTTLE_VALUE, () -> maneuver().throttle(maneuverTime()), "fraction", "Throttle Value")
+				.compile();
+		try {
+			//tasks due at the same time run in this order
+			clock.schedulePeriodic(this::physics, SENSOR_PERIOD);
+			clock.schedulePeriodic(this::pollSensors, SENSOR_PERIOD);
+			clock.schedulePeriodic(this::pollJoysticks, CONTROL_PERIOD);
+			clock.advance(CONTROL_PHASE);
+			clock.schedulePeriodic(this::controlCycle, CONTROL_PERIOD);
+			clock.advance(MATCH_MILLIS - CONTROL_PHASE);
+		} finally {
+			sensors.release();
+			joysticks.release();
+		}
+		return digest;
+	}
+
+	public LatencyTracker getLatency() {
+		return latency;
+	}
+
+	private double time() {
+		return clock.nanos() / 1e9;
+	}
+
+	private Maneuver maneuver() {
+		double t = time() % cycleLength();
+		for (Maneuver maneuver : Maneuver.values()) {
+			if (t < maneuver.getDuration()) {
+				return maneuver;
+			}
+			t -= maneuver.getDuration();
+		}
+		return Maneuver.values()[Maneuver.values().length - 1];
+	}
+
+	private double maneuverTime() {
+		double t = time() % cycleLength();
+		for (Maneuver maneuver : Maneuver.values()) {
+			if (t < maneuver.getDuration()) {
+				return t;
+			}
+			t -= maneuver.getDuration();
+		}
+		return t;
+	}
+
+	private static double cycleLength() {
+		double length = 0;
+		for (Maneuver maneuver : Maneuver.values()) {
+			length += maneuver.getDuration();
+		}
+		return length;
+	}
+
+	private void physics() {
+		double dt = SENSOR_PERIOD / 1000.0;
+		sim.bump(maneuver().bump(maneuverTime(), dt));
+		sim.step(dt);
+	}
+
+	private void pollSensors() {
+		sensors.sample();
+		sensors.publish();
+	}
+
+	private void pollJoysticks() {
+		joysticks.sample();
+		joysticks.publish();
+	}
+
+	private void controlCycle() {
+		controlLoopMonitor.begin();
+		controller.execute(Database.getInstance(), latency, output);
+
+		digest = digest * 31 + Double.doubleToLongBits(controller.getSpeed());
+		digest = digest * 31 + Double.doubleToLongBits(controller.getRotate());
+		digest = digest * 31 + Double.doubleToLongBits(sim.getHeading());
+		controlLoopMonitor.end();
+	}
+
+	public static void main(String[] args) {
+		GcMonitor.getInstance().setEnforceBudgets(true);
+		long start = System.nanoTime();
+		HeadlessMatch first = new HeadlessMatch(2473);
+		long firstDigest = first.run();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long secondDigest = new HeadlessMatch(2473).run();
+
+		System.out.printf("ran a %d s match in %.3f s%n", MATCH_MILLIS / 1000, seconds);
+		System.out.printf("oldest input at actuation: p50 %.2f ms, p99 %.2f ms%n",
+				first.getLatency().getOldest().getPercentile(0.50) / 1e6,
+				first.getLatency().getOldest().getPercentile(0.99) / 1e6);
+		if (firstDigest != secondDigest) {
+			System.out.printf("runs differ: %016x != %016x%n", firstDigest, secondDigest);
+			System.exit(1);
+		}
+		System.out.printf("two runs identical, digest %016x%n", firstDigest);
+	}
+}
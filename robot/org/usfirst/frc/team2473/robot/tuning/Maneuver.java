@@ -0,0 +1,100 @@
+package org.usfirst.frc.team2473.robot.tuning;
+
+/**
+ * The standard maneuvers every candidate is scored on. Each one scripts the throttle and the wheel over time,
+ * and may bump the robot. The reference heading is what the driver wants: held while driving straight, and turning at
+ * REFERENCE_TURN_RATE per unit of wheel while turning. Settling is timed from settleFrom, the last disturbance.
+ */
+public enum Maneuver {
+
+	/**
+	 * drive straight at full throttle with a weak left side
+	 */
+	STRAIGHT(4.0, -1.0, 0) {
+		@Override
+		double wheel(double t) {
+			return 0;
+		}
+	},
+	/**
+	 * drive straight at half throttle and get bumped
+	 */
+	BUMP(4.0, -0.5, Maneuver.BUMP_TIME) {
+		@Override
+		double wheel(double t) {
+			return 0;
+		}
+
+		@Override
+		double bump(double t, double dt) {
+			return t < BUMP_TIME && t + dt >= BUMP_TIME ? 15 : 0;
+		}
+	},
+	/**
+	 * turn, then let go of the wheel and hold the new heading
+	 */
+	TURN_AND_HOLD(4.0, -0.8, 1.0) {
+		@Override
+		double wheel(double t) {
+			return t < 1.0 ? 0.5 : 0;
+		}
+	},
+	/**
+	 * turn with the wheel all the way over at full throttle, then hold the new heading. This is the only maneuver
+	 * that reaches maxTurn
+	 */
+	HARD_TURN(4.0, -1.0, 1.5) {
+		@Override
+		double wheel(double t) {
+			return t < 1.5 ? 1.0 : 0;
+		}
+	},
+	/**
+	 * weave with the wheel, this mostly scores the wheel shaping
+	 */
+	SLALOM(4.0, -0.6, -1) {
+		@Override
+		double wheel(double t) {
+			return 0.6 * Math.sin(2 * Math.PI * t / 2.0);
+		}
+	};
+
+	public static final double REFERENCE_TURN_RATE = 120;//degrees per second for a full wheel
+	public static final double BUMP_TIME = 1.5;//seconds
+
+	private double duration;
+	private double throttle;
+	private double settleFrom;
+
+	private Maneuver(double duration, double throttle, double settleFrom) {
+		this.duration = duration;
+		this.throttle = throttle;
+		this.settleFrom = settleFrom;
+	}
+
+	public double getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the time settling is measured from, negative if the maneuver has no settling time
+	 */
+	public double getSettleFrom() {
+		return settleFrom;
+	}
+
+	double throttle(double t) {
+		return throttle;
+	}
+
+	abstract double wheel(double t);
+
+	/**
+	 * @param t the time at the start of the step
+	 * @param dt the length of the step
+	 * @return how far the robot is bumped during the step, in degrees
+	 */
+	double bump(double t, double dt) {
+		return 0;
+	}
+}
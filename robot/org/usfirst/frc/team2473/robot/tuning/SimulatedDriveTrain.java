@@ -0,0 +1,112 @@
+package org.usfirst.frc.team2473.robot.tuning;
+
+import java.util.Random;
+
+/**
+ * A headless model of the DriveTrain for tuning.<br>
+ * arcadeDrive() mixes like RobotDrive.arcadeDrive (squared inputs, scaled by the DriveTrain max output).
+ * Each side follows its command with a first order lag, the left side is weaker by leftEfficiency,
+ * and the heading turns with the difference between the sides. The encoders count the distance each side travels. Positive rotation turns the gyro negative,
+ * as it does on the robot. The gyro reads the heading plus seeded noise, so runs are reproducible.
+ */
+public class SimulatedDriveTrain {
+
+	public static final double MAX_OUTPUT = .70;//matches DriveTrain
+	public static final double TIME_CONSTANT = 0.12;//seconds for a side to reach 63% of its command
+	public static final double TURN_RATE = 400;//degrees per second for a full differential between the sides
+	public static final double GYRO_NOISE = 0.05;//degrees
+	public static final double COUNTS_PER_SECOND = 4000;//encoder counts per second at full output
+
+	private double leftEfficiency;
+	private Random noise;
+
+	private double leftCommand, rightCommand;
+	private double left, right;
+	private double heading;
+	private double leftDistance, rightDistance;//in encoder counts
+	private double yawRate;
+
+	/**
+	 * @param leftEfficiency how much of its command the left side delivers, ex. 0.92
+	 * @param seed the seed of the gyro noise
+	 */
+	public SimulatedDriveTrain(double leftEfficiency, long seed) {
+		this.leftEfficiency = leftEfficiency;
+		this.noise = new Random(seed);
+	}
+
+	public void arcadeDrive(double moveValue, double rotateValue) {
+		moveValue = limit(moveValue);
+		rotateValue = limit(rotateValue);
+		//square the inputs while keeping the sign
+		moveValue = Math.copySign(moveValue * moveValue, moveValue);
+		rotateValue = Math.copySign(rotateValue * rotateValue, rotateValue);
+
+		double leftMotorSpeed, rightMotorSpeed;
+		if (moveValue > 0.0) {
+			if (rotateValue > 0.0) {
+				leftMotorSpeed = moveValue - rotateValue;
+				rightMotorSpeed = Math.max(moveValue, rotateValue);
+			} else {
+				leftMotorSpeed = Math.max(moveValue, -rotateValue);
+				rightMotorSpeed = moveValue + rotateValue;
+			}
+		} else {
+			if (rotateValue > 0.0) {
+				leftMotorSpeed = -Math.max(-moveValue, rotateValue);
+				rightMotorSpeed = moveValue + rotateValue;
+			} else {
+				leftMotorSpeed = moveValue - rotateValue;
+				rightMotorSpeed = -Math.max(-moveValue, -rotateValue);
+			}
+		}
+		leftCommand = limit(leftMotorSpeed) * MAX_OUTPUT;
+		rightCommand = limit(rightMotorSpeed) * MAX_OUTPUT;
+	}
+
+	/**
+	 * advances the model
+	 * @param seconds the time step
+	 */
+	public void step(double seconds) {
+		double alpha = 1 - Math.exp(-seconds / TIME_CONSTANT);
+		left += (leftCommand * leftEfficiency - left) * alpha;
+		right += (rightCommand - right) * alpha;
+		leftDistance += left * COUNTS_PER_SECOND * seconds;
+		rightDistance += right * COUNTS_PER_SECOND * seconds;
+		yawRate = (left - right) * TURN_RATE;
+		heading += yawRate * seconds;
+	}
+
+	/**
+	 * turns the robot instantly, ex. when it is bumped
+	 * @param degrees the change in heading
+	 */
+	public void bump(double degrees) {
+		heading += degrees;
+	}
+
+	public double getGyro() {
+		return heading + noise.nextGaussian() * GYRO_NOISE;
+	}
+
+	public double getHeading() {
+		return heading;
+	}
+
+	public double getYawRate() {
+		return yawRate;
+	}
+
+	public long getLeftCounts() {
+		return (long) leftDistance;
+	}
+
+	public long getRightCounts() {
+		return (long) rightDistance;
+	}
+
+	private static double limit(double value) {
+		return Math.max(-1, Math.min(1, value));
+	}
+}